@@ -0,0 +1,153 @@
+package com.goodfellas.backend.cache;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Small bounded in-memory cache where every entry carries its own expiry instant.
+ * Reads are lock-free; when the cache is full, expired entries are purged first and, if that is not enough,
+ * arbitrary entries are evicted until there is room again. Hit, miss and eviction counts are kept for metrics.
+ */
+public class ExpiringCache<K, V>
+{
+    private record Entry<V>(V value, long expiresAt) {}
+
+    private final ConcurrentHashMap<K, Entry<V>> entries = new ConcurrentHashMap<>();
+    private final int maxSize;
+    private final long defaultTtlMillis;
+    private final LongSupplier clock;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public ExpiringCache(int maxSize, long defaultTtlMillis)
+    {
+        this(maxSize, defaultTtlMillis, System::currentTimeMillis);
+    }
+
+    public ExpiringCache(int maxSize, long defaultTtlMillis, LongSupplier clock)
+    {
+        this.maxSize = maxSize;
+        this.defaultTtlMillis = defaultTtlMillis;
+        this.clock = clock;
+    }
+
+    public V get(K key)
+    {
+        Entry<V> entry = entries.get(key);
+        if (entry == null)
+        {
+            misses.increment();
+            return null;
+        }
+        if (entry.expiresAt() <= clock.getAsLong())
+        {
+            if (entries.remove(key, entry))
+                evictions.increment();
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return entry.value();
+    }
+
+    public void put(K key, V value)
+    {
+        put(key, value, clock.getAsLong() + defaultTtlMillis);
+    }
+
+    /**
+     * Stores the value until the given instant (epoch millis), capped by the default time-to-live of the cache.
+     */
+    public void put(K key, V value, long expiresAt)
+    {
+        if (maxSize <= 0)
+            return;
+        long now = clock.getAsLong();
+        long cappedExpiry = Math.min(expiresAt, now + defaultTtlMillis);
+        if (cappedExpiry <= now)
+            return;
+        if (entries.size() >= maxSize && !entries.containsKey(key))
+            makeRoom(now);
+        entries.put(key, new Entry<>(value, cappedExpiry));
+    }
+
+    /**
+     * Stores the value unless the key already has an entry that has not expired, so a value loaded before a
+     * concurrent put cannot overwrite it.
+     */
+    public void putIfAbsent(K key, V value, long expiresAt)
+    {
+        if (maxSize <= 0)
+            return;
+        long now = clock.getAsLong();
+        long cappedExpiry = Math.min(expiresAt, now + defaultTtlMillis);
+        if (cappedExpiry <= now)
+            return;
+        if (entries.size() >= maxSize && !entries.containsKey(key))
+            makeRoom(now);
+        Entry<V> created = new Entry<>(value, cappedExpiry);
+        Entry<V> current = entries.putIfAbsent(key, created);
+        while (current != null && current.expiresAt() <= now)
+        {
+            if (entries.replace(key, current, created))
+                return;
+            current = entries.putIfAbsent(key, created);
+        }
+    }
+
+    public void invalidate(K key)
+    {
+        entries.remove(key);
+    }
+
+    public void invalidateAll()
+    {
+        entries.clear();
+    }
+
+    public int size()
+    {
+        return entries.size();
+    }
+
+    public long hitCount()
+    {
+        return hits.sum();
+    }
+
+    public long missCount()
+    {
+        return misses.sum();
+    }
+
+    public long evictionCount()
+    {
+        return evictions.sum();
+    }
+
+    private void makeRoom(long now)
+    {
+        Iterator<Map.Entry<K, Entry<V>>> iterator = entries.entrySet().iterator();
+        while (iterator.hasNext())
+        {
+            if (iterator.next().getValue().expiresAt() <= now)
+            {
+                iterator.remove();
+                evictions.increment();
+            }
+        }
+
+        iterator = entries.entrySet().iterator();
+        while (entries.size() >= maxSize && iterator.hasNext())
+        {
+            iterator.next();
+            iterator.remove();
+            evictions.increment();
+        }
+    }
+}
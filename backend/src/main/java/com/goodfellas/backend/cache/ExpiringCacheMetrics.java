@@ -0,0 +1,34 @@
+package com.goodfellas.backend.cache;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Publishes the counters of an {@link ExpiringCache} using the same meter names as Micrometer's cache binders
+ * (cache.gets, cache.evictions, cache.size), tagged with the cache name.
+ */
+public final class ExpiringCacheMetrics
+{
+    private ExpiringCacheMetrics()
+    {
+    }
+
+    public static void monitor(MeterRegistry registry, ExpiringCache<?, ?> cache, String cacheName)
+    {
+        FunctionCounter.builder("cache.gets", cache, ExpiringCache::hitCount)
+                .tag("cache", cacheName)
+                .tag("result", "hit")
+                .register(registry);
+        FunctionCounter.builder("cache.gets", cache, ExpiringCache::missCount)
+                .tag("cache", cacheName)
+                .tag("result", "miss")
+                .register(registry);
+        FunctionCounter.builder("cache.evictions", cache, ExpiringCache::evictionCount)
+                .tag("cache", cacheName)
+                .register(registry);
+        Gauge.builder("cache.size", cache, ExpiringCache::size)
+                .tag("cache", cacheName)
+                .register(registry);
+    }
+}
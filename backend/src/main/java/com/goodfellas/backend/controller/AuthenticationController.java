@@ -3,13 +3,29 @@ package com.goodfellas.backend.controller;
 import com.goodfellas.backend.dto.AuthResponseDTO;
 import com.goodfellas.backend.dto.LoginDTO;
 import com.goodfellas.backend.dto.PatientRegisterDTO;
+import com.goodfellas.backend.dto.RefreshTokenDTO;
 import com.goodfellas.backend.dto.RegisterDTO;
+import com.goodfellas.backend.event.AccountChangedEvent;
 import com.goodfellas.backend.model.Patient;
 import com.goodfellas.backend.model.Psychologist;
 import com.goodfellas.backend.repository.PatientRepository;
 import com.goodfellas.backend.repository.PsychologistRepository;
+import com.goodfellas.backend.push.EventStreamHub;
+import com.goodfellas.backend.security.AuthenticatedUser;
+import com.goodfellas.backend.security.InvalidRefreshTokenException;
 import com.goodfellas.backend.security.JWTGenerator;
+import com.goodfellas.backend.security.LoginRateLimiter;
+import com.goodfellas.backend.security.JWTAuthenticationFilter;
+import com.goodfellas.backend.security.PasswordHashingUnavailableException;
+import com.goodfellas.backend.security.SecurityConstants;
+import com.goodfellas.backend.security.TokenRevocationList;
+import com.goodfellas.backend.security.TokenVerification;
+import com.goodfellas.backend.service.RefreshTokenService;
+import io.jsonwebtoken.Claims;
+import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -33,25 +49,41 @@ public class AuthenticationController
     private final PsychologistRepository psychologistRepository;
     private final PatientRepository patientRepository;
     private final PasswordEncoder passwordEncoder;
+    private final ApplicationEventPublisher eventPublisher;
+    private final LoginRateLimiter loginRateLimiter;
+    private final RefreshTokenService refreshTokenService;
+    private final TokenRevocationList tokenRevocationList;
+    private final EventStreamHub eventStreamHub;
 
     @Autowired
     public AuthenticationController(AuthenticationManager authenticationManager,
                                     JWTGenerator jwtGenerator,
                                     PsychologistRepository psychologistRepository,
                                     PatientRepository patientRepository,
-                                    PasswordEncoder passwordEncoder) {
+                                    PasswordEncoder passwordEncoder,
+                                    ApplicationEventPublisher eventPublisher,
+                                    LoginRateLimiter loginRateLimiter,
+                                    RefreshTokenService refreshTokenService,
+                                    TokenRevocationList tokenRevocationList,
+                                    EventStreamHub eventStreamHub) {
         this.authenticationManager = authenticationManager;
         this.jwtGenerator = jwtGenerator;
         this.psychologistRepository = psychologistRepository;
         this.patientRepository = patientRepository;
         this.passwordEncoder = passwordEncoder;
+        this.eventPublisher = eventPublisher;
+        this.loginRateLimiter = loginRateLimiter;
+        this.refreshTokenService = refreshTokenService;
+        this.tokenRevocationList = tokenRevocationList;
+        this.eventStreamHub = eventStreamHub;
     }
 
 
     /**
      ENDPOINT: POST /auth/login
-     FUNCTION: Validates credentials, creates a security session, and issues a JWT token. It also fetches the specific profile data based on the user's role (Psychologist or Patient).
+     FUNCTION: Validates credentials, creates a security session, and issues a JWT token. The profile data of the user (Psychologist or Patient) is resolved by the same single account lookup that verified the credentials.
      @param loginDTO The DTO containing the username and password provided by the user.
+     @param request The HTTP request, used to throttle failed attempts per client IP.
      INPUT (JSON):
      {
      "username": "johndoe",
@@ -62,16 +94,28 @@ public class AuthenticationController
      - 200 OK: Returns an AuthResponseDTO containing:
      {
      "accessToken": "Bearer ${bearerToken}",
+     "refreshToken": "${refreshToken}",
      "role": "ROLE_PATIENT"/"ROLE_PSYCHOLOGIST",
-     "userData":
-        - different for psychologist and therapist -
+     "userData": { "id": 1, "username": "johndoe", "firstName": "John", "lastName": "Doe", "age": 30 }
+        - age is only present for patients -
      }
      - 401 UNAUTHORIZED: "Invalid username or password"
+     - 429 TOO MANY REQUESTS: Too many failed attempts for this username or IP (Retry-After header is set); checked before the password
+     - 503 SERVICE UNAVAILABLE: Too many concurrent password checks (Retry-After header is set)
      - 500 INTERNAL SERVER ERROR: Generic error message
      */
     @PostMapping("login")
-    public ResponseEntity<?> login(@RequestBody LoginDTO loginDTO)
+    public ResponseEntity<?> login(@RequestBody LoginDTO loginDTO, HttpServletRequest request)
     {
+        String clientIp = request.getRemoteAddr();
+        long retryAfter = loginRateLimiter.retryAfterSeconds(loginDTO.getUsername(), clientIp);
+        if (retryAfter > 0)
+        {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfter))
+                    .body("Too many failed login attempts, please try again later");
+        }
+
         try
         {
             Authentication authentication = authenticationManager.authenticate
@@ -82,6 +126,7 @@ public class AuthenticationController
                             loginDTO.getPassword()
                             )
                     );
+            loginRateLimiter.recordSuccess(loginDTO.getUsername());
             SecurityContextHolder.getContext().setAuthentication(authentication);
             String token = jwtGenerator.generateToken(authentication);
 
@@ -90,23 +135,59 @@ public class AuthenticationController
                     .findFirst().orElse("UNKNOWN");
 
             Object userData = null;
-            if (role.equals("ROLE_PSYCHOLOGIST")) {
-                userData = psychologistRepository.findByUsername(loginDTO.getUsername()).orElse(null);
-            } else if (role.equals("ROLE_PATIENT")) {
-                userData = patientRepository.findByUsername(loginDTO.getUsername()).orElse(null);
+            String refreshToken = null;
+            if (authentication.getPrincipal() instanceof AuthenticatedUser user) {
+                userData = user.getProfile();
+                refreshToken = refreshTokenService.issue(user);
             }
-            return new ResponseEntity<>(new AuthResponseDTO(token, role, userData), HttpStatus.OK);
+            return new ResponseEntity<>(new AuthResponseDTO(token, refreshToken, role, userData), HttpStatus.OK);
         }
         catch (BadCredentialsException e)
         {
+            loginRateLimiter.recordFailure(loginDTO.getUsername(), clientIp);
             return new ResponseEntity<>("Invalid username or password", HttpStatus.UNAUTHORIZED);
         }
+        catch (PasswordHashingUnavailableException e)
+        {
+            return serviceUnavailable(e);
+        }
         catch (Exception e)
         {
+            // unknown usernames are checked against a dummy hash inside the provider, which wraps our exception
+            if (e.getCause() instanceof PasswordHashingUnavailableException busy)
+                return serviceUnavailable(busy);
             return new ResponseEntity<>("An error occurred during login: " + e.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
         }
     }
 
+    /**
+     ENDPOINT: POST /auth/refresh
+     FUNCTION: Exchanges a refresh token for a new access token without verifying the password again. Refresh tokens are single-use: every call returns a replacement refresh token and extends the session.
+     @param refreshTokenDTO The DTO containing the refresh token received from login or from the previous refresh.
+     INPUT (JSON):
+     {
+     "refreshToken": "${refreshToken}"
+     }
+     @return A ResponseEntity containing the new JWT token, the new refresh token and the role; otherwise an error message.
+     OUTPUT:
+     - 200 OK: Returns an AuthResponseDTO (userData is not included)
+     - 401 UNAUTHORIZED: The refresh token is unknown, was already used or has expired
+     */
+    @PostMapping("refresh")
+    public ResponseEntity<?> refresh(@RequestBody RefreshTokenDTO refreshTokenDTO)
+    {
+        try
+        {
+            RefreshTokenService.Rotation rotation = refreshTokenService.rotate(refreshTokenDTO.getRefreshToken());
+            String token = jwtGenerator.generateToken(rotation.user());
+            return new ResponseEntity<>(new AuthResponseDTO(token, rotation.refreshToken(), rotation.user().getRole(), null), HttpStatus.OK);
+        }
+        catch (InvalidRefreshTokenException e)
+        {
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.UNAUTHORIZED);
+        }
+    }
+
     /**
      ENDPOINT: POST /auth/register/patient
      FUNCTION: Registers a new user with 'ROLE_PATIENT' authority; Validates that the username is unique and the password meets security complexity.
@@ -123,6 +204,7 @@ public class AuthenticationController
      OUTPUT:
      - 200 OK: "Patient registered successfully!"
      - 400 BAD REQUEST: "Error: Username is already taken!" or password validation error
+     - 503 SERVICE UNAVAILABLE: Too many concurrent password hashes (Retry-After header is set)
      - 500 INTERNAL SERVER ERROR: Error message
      */
     @PostMapping("register/patient")
@@ -144,8 +226,13 @@ public class AuthenticationController
             patient.setFirstName(registerDTO.getFirstName());
             patient.setLastName(registerDTO.getLastName());
             patientRepository.save(patient);
+            eventPublisher.publishEvent(new AccountChangedEvent(patient.getUsername()));
             return new ResponseEntity<>("Patient registered successfully!", HttpStatus.OK);
         }
+        catch (PasswordHashingUnavailableException e)
+        {
+            return serviceUnavailable(e);
+        }
         catch (Exception e)
         {
             return new ResponseEntity<>("An error occurred during registration: " + e.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
@@ -168,6 +255,7 @@ public class AuthenticationController
      OUTPUT:
      - 200 OK: "Psychologist registered successfully!"
      - 400 BAD REQUEST: "Error: Username is already taken!" or password validation error
+     - 503 SERVICE UNAVAILABLE: Too many concurrent password hashes (Retry-After header is set)
      - 500 INTERNAL SERVER ERROR: Error message
      */
     @PostMapping("register/psychologist")
@@ -188,8 +276,13 @@ public class AuthenticationController
             psychologist.setFirstName(registerDTO.getFirstName());
             psychologist.setLastName(registerDTO.getLastName());
             psychologistRepository.save(psychologist);
+            eventPublisher.publishEvent(new AccountChangedEvent(psychologist.getUsername()));
             return new ResponseEntity<>("Psychologist registered successfully!", HttpStatus.OK);
         }
+        catch (PasswordHashingUnavailableException e)
+        {
+            return serviceUnavailable(e);
+        }
         catch (Exception e)
         {
             return new ResponseEntity<>("An error occurred during registration: " + e.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
@@ -198,18 +291,40 @@ public class AuthenticationController
 
     /**
      ENDPOINT: POST /auth/logout
-     FUNCTION: "Logs" the user out. While this is largely a client-side action (deleting the JWT token!!!), this endpoint ensures the server context is cleared and provides a standardized hook for the frontend.
-     INPUT: None (Header Authorization required if you want to restrict logout to logged-in users).
+     FUNCTION: Logs the user out. The access token from the Authorization header is revoked until it expires, so it can no longer be used even if it was copied somewhere else, and the open /events streams of the account are closed. If the body carries the refresh token of the session, it is deleted as well.
+     INPUT: Header Authorization: Bearer <token>; optional JSON body { "refreshToken": "..." }
      OUTPUT:
      200 OK: "Logout successful"
      */
     @PostMapping("logout")
-    public ResponseEntity<String> logout()
+    public ResponseEntity<String> logout(HttpServletRequest request, @RequestBody(required = false) RefreshTokenDTO refreshTokenDTO)
     {
+        String token = JWTAuthenticationFilter.getJWTFromRequest(request);
+        if (token != null)
+        {
+            TokenVerification verification = jwtGenerator.verify(token);
+            if (verification.isValid())
+            {
+                Claims claims = verification.claims();
+                tokenRevocationList.revoke(claims.getId(), claims.getExpiration());
+                String role = claims.get(SecurityConstants.ROLE_CLAIM, String.class);
+                Integer userId = claims.get(SecurityConstants.USER_ID_CLAIM, Integer.class);
+                if (role != null && userId != null)
+                    eventStreamHub.disconnect(new EventStreamHub.Recipient(role, userId));
+            }
+        }
+        if (refreshTokenDTO != null && refreshTokenDTO.getRefreshToken() != null)
+            refreshTokenService.revoke(refreshTokenDTO.getRefreshToken());
+
         SecurityContextHolder.clearContext();
         return new ResponseEntity<>("Logout successful", HttpStatus.OK);
     }
 
+    private ResponseEntity<String> serviceUnavailable(PasswordHashingUnavailableException e)
+    {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "1").body(e.getMessage());
+    }
+
     private boolean isValidPassword(String password)
     {
         if (password == null || password.length() < 4)
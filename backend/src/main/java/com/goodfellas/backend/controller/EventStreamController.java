@@ -0,0 +1,80 @@
+package com.goodfellas.backend.controller;
+
+import com.goodfellas.backend.dto.StreamTokenDTO;
+import com.goodfellas.backend.push.EventStreamHub;
+import com.goodfellas.backend.security.AuthenticatedUser;
+import com.goodfellas.backend.security.CurrentUser;
+import com.goodfellas.backend.security.JWTAuthenticationFilter;
+import com.goodfellas.backend.security.JWTGenerator;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.Duration;
+
+@RestController
+public class EventStreamController {
+
+    private final EventStreamHub hub;
+    private final JWTGenerator jwtGenerator;
+    private final Duration streamTokenTtl;
+
+    @Autowired
+    public EventStreamController(EventStreamHub hub, JWTGenerator jwtGenerator,
+                                 @Value("${psycare.push.stream-token-ttl:1m}") Duration streamTokenTtl) {
+        this.hub = hub;
+        this.jwtGenerator = jwtGenerator;
+        this.streamTokenTtl = streamTokenTtl;
+    }
+
+    /**
+     ENDPOINT: POST /events/token
+     FUNCTION: Issues a short-lived stream token for GET /events?token=..., because a browser EventSource cannot send
+     the Authorization header. The token opens the event stream only, and stops working when the access token it was
+     requested with is logged out.
+     @param authentication The security context identifying the account.
+     INPUT: None (However Uses the JWT from the Authorization !!header!! to identify the user).
+     @return The stream token and its lifetime in seconds.
+     OUTPUT:
+     - 200 OK: { "token": "...", "expiresIn": 60 }
+     - 401 UNAUTHORIZED: If the token is missing or invalid.
+     */
+    @PostMapping("/events/token")
+    public ResponseEntity<StreamTokenDTO> streamToken(Authentication authentication, HttpServletRequest request) {
+        AuthenticatedUser user = CurrentUser.user(authentication);
+        String accessToken = JWTAuthenticationFilter.getJWTFromRequest(request);
+        String sessionId = accessToken == null ? null : jwtGenerator.verify(accessToken).claims().getId();
+        String token = jwtGenerator.generateStreamToken(user, sessionId, streamTokenTtl);
+        return ResponseEntity.ok(new StreamTokenDTO(token, streamTokenTtl.toSeconds()));
+    }
+
+    /**
+     ENDPOINT: GET /events  or  GET /events?token=...
+     FUNCTION: Opens a server-sent event stream for the authenticated account, replacing polling.
+     Psychologists receive "journal-shared" (JournalEntrySharedEvent) and "mood-submitted" (MoodSubmittedEvent) events
+     of their patients; patients receive "appointment-booked" (AppointmentBookedEvent). A comment line is sent every
+     25 seconds as heartbeat. The stream ends after 30 minutes, or when the client falls too far behind, and the
+     client reconnects; changes missed in between are fetched with GET /journal/shared?since=. Logging out closes the
+     streams of the account. Events are only delivered by the server instance where the change happened.
+     @param authentication The security context identifying the account.
+     INPUT: The JWT from the Authorization !!header!!, or for browsers (EventSource) the 'token' query parameter with a
+     token from POST /events/token: new EventSource("/events?token=" + token). Once the stream token has expired a
+     browser gets a new one before it reconnects.
+     @return The event stream.
+     OUTPUT:
+     - 200 OK: text/event-stream, e.g. "event:journal-shared\ndata:{"entryId":12,"patientId":3,...}\n\n"
+     - 401 UNAUTHORIZED: If the token is missing or invalid.
+     */
+    @GetMapping(value = "/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamEvents(Authentication authentication) {
+        AuthenticatedUser user = CurrentUser.user(authentication);
+        return hub.subscribe(new EventStreamHub.Recipient(user.getRole(), user.getId()));
+    }
+}
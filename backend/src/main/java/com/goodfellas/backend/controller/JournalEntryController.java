@@ -1,13 +1,20 @@
 package com.goodfellas.backend.controller;
 
 import com.goodfellas.backend.dto.JournalEntryDTO;
+import com.goodfellas.backend.dto.JournalEntrySummaryDTO;
+import com.goodfellas.backend.dto.JournalSearchResultDTO;
+import com.goodfellas.backend.dto.TagCountDTO;
+import com.goodfellas.backend.security.CurrentUser;
 import com.goodfellas.backend.service.JournalEntryService;
 import com.goodfellas.backend.service.PsychologistService;
+import com.goodfellas.backend.service.SharedJournalSync;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.AccessDeniedException;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 
@@ -19,27 +26,51 @@ public class JournalEntryController {
 
     private final PsychologistService psychologistService;
 
+    private final SharedJournalSync sharedJournalSync;
+
     @Autowired
-    public JournalEntryController(JournalEntryService journalService, PsychologistService psychologistService)
+    public JournalEntryController(JournalEntryService journalService, PsychologistService psychologistService, SharedJournalSync sharedJournalSync)
     {
         this.journalService = journalService;
         this.psychologistService = psychologistService;
+        this.sharedJournalSync = sharedJournalSync;
     }
 
     /**
-     ENDPOINT: GET /journal
-     FUNCTION: Retrieves all journal entries belonging to the currently authenticated patient.
+     ENDPOINT: GET /journal?tag=...
+     FUNCTION: Retrieves all journal entries belonging to the currently authenticated patient, optionally only those with a tag.
+     @param tag Optional. Only return entries carrying this tag (case and a leading '#' are ignored), newest first.
      @param authentication The security context containing the current user's details.
-     INPUT: None (However Uses the JWT from the Authorization !!header!! to identify the user).
-     @return A list of journal entries belonging to the authenticated user.
+     INPUT: Query Parameter: 'tag' (String, optional). (However Uses the JWT from the Authorization !!header!! to identify the user).
+     @return A list of journal entries belonging to the authenticated user, newest first. Each carries a preview of its
+     text and the text's length; the full text is returned by GET /journal/{id}.
      OUTPUT:
-     - 200 OK: A List of JournalEntryDTO objects.
+     - 200 OK: A List of JournalEntrySummaryDTO objects.
      - 401 UNAUTHORIZED: If the token is missing or invalid.
      */
     @GetMapping
-    public ResponseEntity<List<JournalEntryDTO>> getJournalEntriesOfPatient(Authentication authentication)
+    public ResponseEntity<List<JournalEntrySummaryDTO>> getJournalEntriesOfPatient(@RequestParam(required = false) String tag, Authentication authentication)
     {
-        return ResponseEntity.ok(journalService.getMyEntries(authentication.getName()));
+        int patientId = CurrentUser.patientId(authentication);
+        if (tag != null)
+            return ResponseEntity.ok(journalService.getMyEntriesByTag(patientId, tag));
+        return ResponseEntity.ok(journalService.getMyEntries(patientId));
+    }
+
+    /**
+     ENDPOINT: GET /journal/tags
+     FUNCTION: Lists the tags the authenticated patient used, with the number of entries carrying each one.
+     @param authentication The security context containing the current user's details.
+     INPUT: None (However Uses the JWT from the Authorization !!header!! to identify the user).
+     @return The tags, most used first.
+     OUTPUT:
+     - 200 OK: A List of TagCountDTO objects, e.g. [{"tag": "work", "count": 12}, {"tag": "family", "count": 5}]
+     - 403 FORBIDDEN: If the authenticated user is not a patient.
+     */
+    @GetMapping("/tags")
+    public ResponseEntity<List<TagCountDTO>> getJournalTagsOfPatient(Authentication authentication)
+    {
+        return ResponseEntity.ok(journalService.getMyTags(CurrentUser.patientId(authentication)));
     }
 
     /**
@@ -57,17 +88,98 @@ public class JournalEntryController {
     @GetMapping("/{id}")
     public ResponseEntity<JournalEntryDTO> getJournalEntryOfPatientById(@PathVariable int id, Authentication authentication)
     {
-        return ResponseEntity.ok(journalService.getEntry(authentication.getName(), id));
+        return ResponseEntity.ok(journalService.getEntry(CurrentUser.patientId(authentication), id));
     }
 
     /**
-     * @param authentication
-     * @return shared journals
+     ENDPOINT: GET /journal/shared?patientId=...&limit=...&cursor=...  or  GET /journal/shared?since=...
+     FUNCTION: Feed of the journal entries that the authenticated psychologist's patients shared, newest first, one page at a time.
+     With 'since', returns only what changed after that version instead (see SharedJournalChangesDTO).
+     Responses carry an ETag unless the feed changed within the last seconds; a request whose If-None-Match still matches
+     is answered with 304 without loading entries.
+     @param patientId Optional. Only entries of this assigned patient.
+     @param limit Optional page size, defaults to 30 and is capped at 100.
+     @param cursor Optional nextCursor value of the previous page.
+     @param since Optional 'version' of the previous sync response (or of a reset).
+     @param authentication The security context identifying the psychologist.
+     INPUT: Query parameters and optional If-None-Match header (However Uses the JWT from the Authorization !!header!! to identify the user).
+     @return One page of shared entries as summaries with a preview of the text, or the changes since a version.
+     OUTPUT:
+     - 200 OK: { "items": [JournalEntrySummaryDTO...], "nextCursor": "...", "hasMore": true }
+               or with since: { "changed": [...], "deleted": [ids], "version": 1741600000000000, "hasMore": false, "reset": false }
+     - 304 NOT MODIFIED: Nothing changed since the ETag given in If-None-Match.
+     - 400 BAD REQUEST: If the cursor is invalid.
+     - 403 FORBIDDEN: If the user is not a psychologist or the patient is not assigned to them.
      */
     @GetMapping("/shared")
-    public ResponseEntity<List<JournalEntryDTO>> getSharedJournalEntriesOfPatient(Authentication authentication)
+    public ResponseEntity<?> getSharedJournalEntriesOfPatient(@RequestParam(required = false) Integer patientId,
+                                                              @RequestParam(required = false) Integer limit,
+                                                              @RequestParam(required = false) String cursor,
+                                                              @RequestParam(required = false) Long since,
+                                                              Authentication authentication,
+                                                              WebRequest request)
+    {
+        int psychologistId = CurrentUser.psychologistId(authentication);
+        String etag = sharedJournalSync.etag(psychologistId);
+        if (etag != null && request.checkNotModified(etag))
+            return null;
+        try
+        {
+            ResponseEntity.BodyBuilder ok = ResponseEntity.ok();
+            if (etag != null)
+                ok.eTag(etag);
+            if (since != null)
+                return ok.body(sharedJournalSync.getChanges(psychologistId, since));
+            return ok.body(psychologistService.getSharedJournalEntries(psychologistId, patientId, limit, cursor));
+        }
+        catch (AccessDeniedException e)
+        {
+            throw e;
+        }
+        catch (RuntimeException e)
+        {
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
+        }
+    }
+
+    /**
+     ENDPOINT: GET /journal/search?q=...&limit=...
+     FUNCTION: Full-text search over the title, tags and text of the authenticated patient's journal entries.
+     @param q The search words. Word endings and accents are ignored ("feeling" also finds "feel").
+     @param limit Optional. Maximum number of results, 20 by default and at most 100.
+     @param authentication The security context identifying the patient.
+     INPUT: Query Parameters: 'q' (String), 'limit' (Integer). (However Uses the JWT from the Authorization !!header!! to identify the user).
+     @return The matching entries, best match first, each with a short snippet of its text.
+     OUTPUT:
+     - 200 OK: A List of JournalSearchResultDTO objects (empty if nothing matches).
+     - 403 FORBIDDEN: If the authenticated user is not a patient.
+     */
+    @GetMapping("/search")
+    public ResponseEntity<List<JournalSearchResultDTO>> searchJournalEntriesOfPatient(@RequestParam String q,
+                                                                                      @RequestParam(required = false) Integer limit,
+                                                                                      Authentication authentication)
+    {
+        return ResponseEntity.ok(journalService.searchMyEntries(CurrentUser.patientId(authentication), q, limit));
+    }
+
+    /**
+     ENDPOINT: GET /journal/shared/search?q=...&limit=...
+     FUNCTION: Full-text search over the journal entries that the authenticated psychologist's patients shared.
+     @param q The search words.
+     @param limit Optional. Maximum number of results, 20 by default and at most 100.
+     @param authentication The security context identifying the psychologist.
+     INPUT: Query Parameters: 'q' (String), 'limit' (Integer). (However Uses the JWT from the Authorization !!header!! to identify the user).
+     @return The matching shared entries of all assigned patients, best match first.
+     OUTPUT:
+     - 200 OK: A List of JournalSearchResultDTO objects (empty if nothing matches).
+     - 403 FORBIDDEN: If the authenticated user is not a psychologist.
+     */
+    @GetMapping("/shared/search")
+    public ResponseEntity<List<JournalSearchResultDTO>> searchSharedJournalEntries(@RequestParam String q,
+                                                                                   @RequestParam(required = false) Integer limit,
+                                                                                   Authentication authentication)
     {
-        return ResponseEntity.ok(psychologistService.getSharedJournalEntries(authentication.getName()));
+        return ResponseEntity.ok(journalService.searchSharedEntries(CurrentUser.psychologistId(authentication), q, limit));
     }
 
     /**
@@ -84,12 +196,12 @@ public class JournalEntryController {
      @return A confirmation message indicating the resource was created.
      OUTPUT:
      - 201 CREATED: "Journal entry created successfully"
-     - 400 BAD REQUEST: If the user is not found or data is invalid.
+     - 400 BAD REQUEST: If the data is invalid.
      */
     @PostMapping
     public ResponseEntity<String> createJournalEntryOfPatient(@RequestBody JournalEntryDTO dto, Authentication authentication)
     {
-        journalService.createEntry(authentication.getName(), dto);
+        journalService.createEntry(CurrentUser.patientId(authentication), dto);
         return new ResponseEntity<>("Journal entry created successfully", HttpStatus.CREATED);
     }
 
@@ -117,7 +229,7 @@ public class JournalEntryController {
     {
         try
         {
-            journalService.updateEntry(authentication.getName(), id, dto);
+            journalService.updateEntry(CurrentUser.patientId(authentication), id, dto);
             return ResponseEntity.ok("Journal entry updated successfully");
         }
         catch (RuntimeException e)
@@ -142,7 +254,7 @@ public class JournalEntryController {
     {
         try
         {
-            journalService.deleteEntry(authentication.getName(), id);
+            journalService.deleteEntry(CurrentUser.patientId(authentication), id);
             return ResponseEntity.ok("Journal entry deleted successfully");
         }
         catch (RuntimeException e)
@@ -167,7 +279,7 @@ public class JournalEntryController {
     {
         try
         {
-            journalService.shareWithPsychologist(authentication.getName(), id);
+            journalService.shareWithPsychologist(CurrentUser.patientId(authentication), id);
             return ResponseEntity.ok("Journal entry shared with your psychologist.");
         }
         catch (RuntimeException e)
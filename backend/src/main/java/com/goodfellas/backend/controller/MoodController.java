@@ -1,13 +1,22 @@
 package com.goodfellas.backend.controller;
 
 import com.goodfellas.backend.dto.MoodDTO;
+import com.goodfellas.backend.dto.MoodImportRowDTO;
+import com.goodfellas.backend.dto.MoodStatsDTO;
+import com.goodfellas.backend.security.CurrentUser;
+import com.goodfellas.backend.service.MoodImportService;
 import com.goodfellas.backend.service.MoodService;
+import com.goodfellas.backend.service.MoodStatsService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Map;
 
@@ -16,11 +25,15 @@ import java.util.Map;
 public class MoodController
 {
     private final MoodService moodService;
+    private final MoodStatsService moodStatsService;
+    private final MoodImportService moodImportService;
 
     @Autowired
-    public MoodController(MoodService moodService)
+    public MoodController(MoodService moodService, MoodStatsService moodStatsService, MoodImportService moodImportService)
     {
         this.moodService = moodService;
+        this.moodStatsService = moodStatsService;
+        this.moodImportService = moodImportService;
     }
 
     /**
@@ -42,6 +55,7 @@ public class MoodController
     @PostMapping
     public ResponseEntity<String> submitMoodOfPatientForTheDay(@RequestBody Map<String, Integer> payload, Authentication authentication)
     {
+        int patientId = CurrentUser.patientId(authentication);
         try
         {
             Integer value = payload.get("value");
@@ -49,7 +63,7 @@ public class MoodController
             {
                 return new ResponseEntity<>("Error: 'value' field is required.", HttpStatus.BAD_REQUEST);
             }
-            moodService.submitMood(authentication.getName(), value);
+            moodService.submitMood(patientId, value);
             return new ResponseEntity<>("Mood submitted successfully!", HttpStatus.CREATED);
         }
         catch (RuntimeException e)
@@ -61,28 +75,149 @@ public class MoodController
     /**
      ENDPOINT: GET /mood
      FUNCTION:
-     Retrieves the historical list of all mood entries recorded by the authenticated patient.
+     Retrieves the mood history of the authenticated patient, newest first, one page at a time.
+     @param from Optional first day to include (yyyy-MM-dd).
+     @param to Optional last day to include (yyyy-MM-dd), defaults to today.
+     @param limit Optional page size, defaults to 30 and is capped at 100.
+     @param cursor Optional nextCursor value of the previous page.
      @param authentication The security context identifying the patient.
-     INPUT: None (Uses the JWT from Authentication Header of User)
-     @return A list of all historical mood entries for the user.
+     INPUT: Query parameters only (Uses the JWT from Authentication Header of User), e.g. GET /mood?from=2025-01-01&limit=20
+     @return One page of mood entries.
      OUTPUT:
-     - 200 OK: A List of MoodDTO objects.
+     - 200 OK: { "items": [MoodDTO...], "nextCursor": "...", "hasMore": true }
+     - 400 BAD REQUEST: If the range or the cursor is invalid.
      - 401 UNAUTHORIZED: If the user is not logged in.
+     - 403 FORBIDDEN: If the user is not a patient.
      */
     @GetMapping
-    public ResponseEntity<List<MoodDTO>> getMyMoodHistoryOfPatient(Authentication authentication)
+    public ResponseEntity<?> getMyMoodHistoryOfPatient(@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                                       @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+                                                       @RequestParam(required = false) Integer limit,
+                                                       @RequestParam(required = false) String cursor,
+                                                       Authentication authentication)
     {
-        return ResponseEntity.ok(moodService.getMyMoodHistory(authentication.getName()));
+        int patientId = CurrentUser.patientId(authentication);
+        try
+        {
+            return ResponseEntity.ok(moodService.getMoodHistory(patientId, from, to, limit, cursor));
+        }
+        catch (RuntimeException e)
+        {
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
+        }
     }
 
     @GetMapping("/today")
     public ResponseEntity<MoodDTO> getTodayMood(Authentication auth)
     {
-        String username = auth.getName();
+        int patientId = CurrentUser.patientId(auth);
 
-        return moodService.getTodayMood(username)
+        return moodService.getTodayMood(patientId)
                 .map(ResponseEntity::ok)
                 .orElse(ResponseEntity.noContent().build());
     }
 
-}
\ No newline at end of file
+    /**
+     ENDPOINT: GET /mood/stats
+     FUNCTION:
+     Returns the mood statistics of the authenticated patient: lifetime count/average/min/max, streaks of consecutive
+     days and the 7/30/90-day windows. They are maintained on every submission, so no mood history is read.
+     @param authentication The security context identifying the patient.
+     INPUT: None (Uses the JWT from Authentication Header of User)
+     @return The aggregated statistics.
+     OUTPUT:
+     - 200 OK: A MoodStatsDTO object.
+     - 403 FORBIDDEN: If the user is not a patient.
+     */
+    @GetMapping("/stats")
+    public ResponseEntity<MoodStatsDTO> getMoodStatsOfPatient(Authentication authentication)
+    {
+        return ResponseEntity.ok(moodStatsService.getStats(CurrentUser.patientId(authentication)));
+    }
+
+    /**
+     ENDPOINT: GET /mood/calendar
+     FUNCTION:
+     Returns one year of the authenticated patient's moods for the heatmap view, packed instead of as a list of objects:
+     'values' has one byte per day of the year (0 = no entry) and 'present' is a bitmap of the days with an entry.
+     Both are base64 strings, so a full year is a few hundred bytes.
+     @param year Optional year, defaults to the current one.
+     @param authentication The security context identifying the patient.
+     INPUT: Query parameter only (Uses the JWT from Authentication Header of User), e.g. GET /mood/calendar?year=2025
+     @return The packed calendar.
+     OUTPUT:
+     - 200 OK: { "year": 2025, "days": 365, "count": 120, "values": "...", "present": "..." }
+     - 400 BAD REQUEST: If the year is out of range.
+     - 403 FORBIDDEN: If the user is not a patient.
+     */
+    @GetMapping("/calendar")
+    public ResponseEntity<?> getMoodCalendarOfPatient(@RequestParam(required = false) Integer year, Authentication authentication)
+    {
+        int patientId = CurrentUser.patientId(authentication);
+        try
+        {
+            return ResponseEntity.ok(moodService.getCalendar(patientId, year == null ? LocalDate.now().getYear() : year));
+        }
+        catch (RuntimeException e)
+        {
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
+        }
+    }
+
+    /**
+     ENDPOINT: GET /mood/export
+     FUNCTION:
+     Downloads the mood history of the authenticated patient as a CSV file (columns: date,value), oldest first.
+     @param from Optional first day to include (yyyy-MM-dd).
+     @param to Optional last day to include (yyyy-MM-dd).
+     @param authentication The security context identifying the patient.
+     INPUT: Query parameters only (Uses the JWT from Authentication Header of User)
+     @return The CSV file.
+     OUTPUT:
+     - 200 OK: text/csv attachment "mood-history.csv".
+     - 403 FORBIDDEN: If the user is not a patient.
+     */
+    @GetMapping("/export")
+    public ResponseEntity<String> exportMoodHistoryOfPatient(@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                                             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+                                                             Authentication authentication)
+    {
+        String csv = moodService.exportCsv(CurrentUser.patientId(authentication), from, to);
+        return ResponseEntity.ok()
+                .contentType(new MediaType("text", "csv"))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"mood-history.csv\"")
+                .body(csv);
+    }
+
+    /**
+     ENDPOINT: POST /mood/import
+     FUNCTION:
+     Imports past mood entries of the authenticated patient, e.g. from a paper diary or another app. Each row is
+     checked on its own; rows for days that already have a mood are skipped.
+     @param rows The moods to import.
+     @param authentication The security context identifying the patient.
+     INPUT (JSON): (Uses the JWT from Authentication Header of User)
+     [
+     { "date": "2025-01-01", "value": 6 },
+     { "date": "2025-01-02", "value": 7 }
+     ]
+     @return A summary plus the outcome of every row (IMPORTED, DUPLICATE or INVALID).
+     OUTPUT:
+     - 200 OK: A MoodImportResultDTO object.
+     - 400 BAD REQUEST: If the body is empty or too large.
+     - 403 FORBIDDEN: If the user is not a patient.
+     */
+    @PostMapping("/import")
+    public ResponseEntity<?> importMoodsOfPatient(@RequestBody List<MoodImportRowDTO> rows, Authentication authentication)
+    {
+        int patientId = CurrentUser.patientId(authentication);
+        try
+        {
+            return ResponseEntity.ok(moodImportService.importMoods(patientId, rows));
+        }
+        catch (RuntimeException e)
+        {
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.goodfellas.backend.controller;
+
+import com.goodfellas.backend.dto.MoodAlertDTO;
+import com.goodfellas.backend.security.CurrentUser;
+import com.goodfellas.backend.service.MoodAlertService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+import static org.springframework.http.HttpStatus.NOT_FOUND;
+import static org.springframework.http.ResponseEntity.ok;
+
+@RestController
+@RequestMapping("/psychologists/me/alerts")
+public class PsychologistAlertController {
+
+    private final MoodAlertService moodAlertService;
+
+    @Autowired
+    public PsychologistAlertController(MoodAlertService moodAlertService) {
+        this.moodAlertService = moodAlertService;
+    }
+
+    /**
+     * Mood drop alerts of the patients assigned to the authenticated psychologist, newest first.
+     * @param all also return alerts that were already acknowledged
+     */
+    @GetMapping
+    public ResponseEntity<List<MoodAlertDTO>> getAlerts(@RequestParam(defaultValue = "false") boolean all, Authentication authentication) {
+        return ok(moodAlertService.getAlerts(CurrentUser.psychologistId(authentication), all));
+    }
+
+    /**
+     * Marks an alert as seen.
+     */
+    @PostMapping("/{alertId}/acknowledge")
+    public ResponseEntity<String> acknowledgeAlert(@PathVariable int alertId, Authentication authentication) {
+        int psychologistId = CurrentUser.psychologistId(authentication);
+        try {
+            moodAlertService.acknowledge(psychologistId, alertId);
+            return ok("Alert acknowledged");
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(NOT_FOUND).body(e.getMessage());
+        }
+    }
+}
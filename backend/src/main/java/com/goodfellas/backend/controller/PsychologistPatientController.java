@@ -1,13 +1,19 @@
 package com.goodfellas.backend.controller;
 
+import com.goodfellas.backend.dto.MoodImportRowDTO;
+import com.goodfellas.backend.dto.PatientMoodOverviewDTO;
 import com.goodfellas.backend.dto.PatientViewDTO;
+import com.goodfellas.backend.security.CurrentUser;
+import com.goodfellas.backend.service.MoodImportService;
 import com.goodfellas.backend.service.PatientService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.AccessDeniedException;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
@@ -22,10 +28,12 @@ import static org.springframework.http.ResponseEntity.ok;
 public class PsychologistPatientController {
 
     private final PatientService patientService;
+    private final MoodImportService moodImportService;
 
     @Autowired
-    public PsychologistPatientController(PatientService patientService) {
+    public PsychologistPatientController(PatientService patientService, MoodImportService moodImportService) {
         this.patientService = patientService;
+        this.moodImportService = moodImportService;
     }
 
     /**
@@ -47,6 +55,15 @@ public class PsychologistPatientController {
         return ok(patientService.getAssignedPatients(authentication.getName()));
     }
 
+    /**
+     * Mood dashboard of the authenticated psychologist: latest mood, 7-day average and trend of every assigned patient.
+     * Served from a single aggregate query that is cached for a few seconds.
+     */
+    @GetMapping("/moods")
+    public ResponseEntity<List<PatientMoodOverviewDTO>> getAssignedPatientsMoods(Authentication authentication) {
+        return ok(patientService.getAssignedPatientsMoodOverview(CurrentUser.psychologistId(authentication)));
+    }
+
     /**
      * Assigns an unassigned patient to the authenticated psychologist.
      */
@@ -59,4 +76,20 @@ public class PsychologistPatientController {
             return ResponseEntity.status(BAD_REQUEST).body(e.getMessage());
         }
     }
+
+    /**
+     * Imports past mood entries for an assigned patient, e.g. when the clinic migrates paper records.
+     * Responds with the outcome of every row; see POST /mood/import for the body format.
+     */
+    @PostMapping("/{patientId}/moods/import")
+    public ResponseEntity<?> importPatientMoods(@PathVariable int patientId, @RequestBody List<MoodImportRowDTO> rows, Authentication authentication) {
+        int psychologistId = CurrentUser.psychologistId(authentication);
+        try {
+            return ok(moodImportService.importForAssignedPatient(psychologistId, patientId, rows));
+        } catch (AccessDeniedException e) {
+            throw e;
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(BAD_REQUEST).body(e.getMessage());
+        }
+    }
 }
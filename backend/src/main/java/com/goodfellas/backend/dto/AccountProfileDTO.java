@@ -0,0 +1,17 @@
+package com.goodfellas.backend.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class AccountProfileDTO
+{
+    private int id;
+    private String username;
+    private String firstName;
+    private String lastName;
+    private Integer age;
+}
@@ -5,12 +5,14 @@ import lombok.Data;
 @Data
 public class AuthResponseDTO {
     private String accessToken;
+    private String refreshToken;
     private String role;
     private Object userData;
 
-    public AuthResponseDTO(String accessToken, String role, Object userData)
+    public AuthResponseDTO(String accessToken, String refreshToken, String role, Object userData)
     {
         this.accessToken = "Bearer " + accessToken;
+        this.refreshToken = refreshToken;
         this.role = role;
         this.userData = userData;
     }
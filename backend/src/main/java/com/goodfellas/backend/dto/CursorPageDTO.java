@@ -0,0 +1,21 @@
+package com.goodfellas.backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * One page of a keyset-paginated list. nextCursor is null when hasMore is false; otherwise it is passed back as
+ * the cursor parameter to fetch the following page.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CursorPageDTO<T>
+{
+    private List<T> items;
+    private String nextCursor;
+    private boolean hasMore;
+}
@@ -0,0 +1,36 @@
+package com.goodfellas.backend.dto;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+/**
+ * Position in a list of journal entries ordered by (date desc, id desc), the timestamp counterpart of KeysetCursor.
+ */
+public record JournalCursor(LocalDateTime date, int id)
+{
+    /**
+     * Sorts before every real entry, so a feed without a cursor starts at the newest entry.
+     */
+    public static final JournalCursor FIRST = new JournalCursor(LocalDateTime.of(9999, 12, 31, 0, 0), Integer.MAX_VALUE);
+
+    public String encode()
+    {
+        String raw = date + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    public static JournalCursor decode(String cursor)
+    {
+        try
+        {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.US_ASCII);
+            int separator = raw.indexOf('|');
+            return new JournalCursor(LocalDateTime.parse(raw.substring(0, separator)), Integer.parseInt(raw.substring(separator + 1)));
+        }
+        catch (RuntimeException e)
+        {
+            throw new RuntimeException("Error: Invalid cursor.");
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.goodfellas.backend.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * A journal entry as shown in lists: the first PREVIEW_LENGTH characters of the text and its full length instead of
+ * the whole text, which is only loaded by GET /journal/{id}. Built directly by the list queries of
+ * JournalEntryRepository, so the database never sends more than the preview.
+ */
+@Data
+@NoArgsConstructor
+public class JournalEntrySummaryDTO
+{
+    public static final int PREVIEW_LENGTH = 200;
+
+    private int id;
+    private String title;
+    private String tags;
+    private LocalDateTime date;
+    private boolean allowPsychologist;
+    private int patientId;
+    private String preview;
+    private int length;
+    private long changeVersion;
+
+    public JournalEntrySummaryDTO(int id, String title, String tags, LocalDateTime date, boolean allowPsychologist,
+                                  int patientId, String preview, Integer length, long changeVersion)
+    {
+        this.id = id;
+        this.title = title;
+        this.tags = tags;
+        this.date = date;
+        this.allowPsychologist = allowPsychologist;
+        this.patientId = patientId;
+        this.length = length == null ? 0 : length;
+        this.preview = preview != null && this.length > preview.length() ? preview.stripTrailing() + "…" : preview;
+        this.changeVersion = changeVersion;
+    }
+}
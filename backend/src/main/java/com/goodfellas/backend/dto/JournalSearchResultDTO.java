@@ -0,0 +1,18 @@
+package com.goodfellas.backend.dto;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+@Data
+public class JournalSearchResultDTO
+{
+    private int id;
+    private String title;
+    private String snippet;
+    private String tags;
+    private LocalDateTime date;
+    private boolean allowPsychologist;
+    private int patientId;
+    private double score;
+}
@@ -0,0 +1,33 @@
+package com.goodfellas.backend.dto;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Base64;
+
+/**
+ * Position in a list ordered by (date desc, id desc): the date and id of the last row of the previous page.
+ * It travels as an opaque url-safe token so clients do not build it themselves.
+ */
+public record KeysetCursor(LocalDate date, int id)
+{
+    public String encode()
+    {
+        String raw = date.toEpochDay() + ":" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    public static KeysetCursor decode(String cursor)
+    {
+        try
+        {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.US_ASCII);
+            int separator = raw.indexOf(':');
+            return new KeysetCursor(LocalDate.ofEpochDay(Long.parseLong(raw.substring(0, separator))),
+                    Integer.parseInt(raw.substring(separator + 1)));
+        }
+        catch (RuntimeException e)
+        {
+            throw new RuntimeException("Error: Invalid cursor.");
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.goodfellas.backend.dto;
+
+import com.goodfellas.backend.model.MoodAlertType;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MoodAlertDTO {
+    private int id;
+    private int patientId;
+    private String patientFirstName;
+    private String patientLastName;
+    private MoodAlertType type;
+    private LocalDate moodDate;
+    private int moodValue;
+    private double baseline;
+    private LocalDateTime createdAt;
+    private boolean acknowledged;
+}
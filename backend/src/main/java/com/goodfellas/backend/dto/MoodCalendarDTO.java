@@ -0,0 +1,22 @@
+package com.goodfellas.backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A year of moods in packed form. Both arrays are serialised as base64 strings.
+ * values holds one byte per day of the year (index 0 = January 1st), 0 when there is no entry.
+ * present is a bitmap with bit (day % 8) of byte (day / 8) set when the day has an entry.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MoodCalendarDTO
+{
+    private int year;
+    private int days;
+    private int count;
+    private byte[] values;
+    private byte[] present;
+}
@@ -0,0 +1,32 @@
+package com.goodfellas.backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+public class MoodImportResultDTO
+{
+    public enum Status { IMPORTED, DUPLICATE, INVALID }
+
+    private int imported;
+    private int duplicates;
+    private int invalid;
+    /** One entry per submitted row, in request order. */
+    private List<Row> rows = new ArrayList<>();
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Row
+    {
+        private int index;
+        private LocalDate date;
+        private Status status;
+        private String message;
+    }
+}
@@ -0,0 +1,16 @@
+package com.goodfellas.backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MoodImportRowDTO
+{
+    private LocalDate date;
+    private Integer value;
+}
@@ -0,0 +1,34 @@
+package com.goodfellas.backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+@Data
+public class MoodStatsDTO
+{
+    private int count;
+    private Double average;
+    private Integer min;
+    private Integer max;
+    private LocalDate lastDate;
+    private int currentStreak;
+    private int longestStreak;
+    private Window last7Days;
+    private Window last30Days;
+    private Window last90Days;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Window
+    {
+        private int days;
+        private int count;
+        private Double average;
+        private Integer min;
+        private Integer max;
+    }
+}
@@ -0,0 +1,33 @@
+package com.goodfellas.backend.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+@Data
+@NoArgsConstructor
+public class PatientMoodOverviewDTO {
+    private int id;
+    private String firstName;
+    private String lastName;
+    private String username;
+    private Integer latestMood;
+    private LocalDate latestMoodDate;
+    private Double averageLast7Days;
+    private Double averagePrevious7Days;
+    /** UP, DOWN or STABLE compared to the previous 7 days; null when one of the two weeks has no entries. */
+    private String trend;
+
+    public PatientMoodOverviewDTO(int id, String firstName, String lastName, String username, Integer latestMood,
+                                  LocalDate latestMoodDate, Double averageLast7Days, Double averagePrevious7Days) {
+        this.id = id;
+        this.firstName = firstName;
+        this.lastName = lastName;
+        this.username = username;
+        this.latestMood = latestMood;
+        this.latestMoodDate = latestMoodDate;
+        this.averageLast7Days = averageLast7Days;
+        this.averagePrevious7Days = averagePrevious7Days;
+    }
+}
@@ -0,0 +1,9 @@
+package com.goodfellas.backend.dto;
+
+import lombok.Data;
+
+@Data
+public class RefreshTokenDTO
+{
+    private String refreshToken;
+}
@@ -0,0 +1,24 @@
+package com.goodfellas.backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Answer to GET /journal/shared?since=. changed holds the entries created, edited or shared since that version and
+ * deleted the ids of entries to drop. version is passed as since on the next poll. reset means since is too old to
+ * be answered incrementally: reload the feed and continue from version.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SharedJournalChangesDTO
+{
+    private List<JournalEntrySummaryDTO> changed;
+    private List<Integer> deleted;
+    private long version;
+    private boolean hasMore;
+    private boolean reset;
+}
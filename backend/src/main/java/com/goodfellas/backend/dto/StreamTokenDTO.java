@@ -0,0 +1,12 @@
+package com.goodfellas.backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class StreamTokenDTO
+{
+    private String token;
+    private long expiresIn;
+}
@@ -0,0 +1,9 @@
+package com.goodfellas.backend.event;
+
+/**
+ * Published whenever data backing an account's authentication changes (registration, password change,
+ * psychologist assignment), so that anything cached for that username can be dropped.
+ */
+public record AccountChangedEvent(String username)
+{
+}
@@ -0,0 +1,10 @@
+package com.goodfellas.backend.event;
+
+import java.time.LocalDateTime;
+
+/**
+ * Published when a psychologist books an appointment for one of their patients.
+ */
+public record AppointmentBookedEvent(int appointmentId, int patientId, int psychologistId, LocalDateTime startTime, LocalDateTime endTime)
+{
+}
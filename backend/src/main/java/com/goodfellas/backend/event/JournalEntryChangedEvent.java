@@ -0,0 +1,12 @@
+package com.goodfellas.backend.event;
+
+import com.goodfellas.backend.model.JournalEntry;
+
+/**
+ * Published by JournalEntryService after an entry was created, edited or shared, carrying the saved entry with its
+ * patient. The search index and the shared journal sync pick it up with {@code @TransactionalEventListener}, so a
+ * rolled back change never reaches them.
+ */
+public record JournalEntryChangedEvent(JournalEntry entry)
+{
+}
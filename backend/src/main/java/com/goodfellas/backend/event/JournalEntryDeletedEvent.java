@@ -0,0 +1,9 @@
+package com.goodfellas.backend.event;
+
+/**
+ * Published by JournalEntryService after an entry was deleted.
+ * @param tombstoneVersion the version of the tombstone left for the psychologist, 0 if the entry was not shared.
+ */
+public record JournalEntryDeletedEvent(int entryId, int patientId, long tombstoneVersion)
+{
+}
@@ -0,0 +1,10 @@
+package com.goodfellas.backend.event;
+
+import java.time.LocalDateTime;
+
+/**
+ * Published when a patient shares a journal entry with their psychologist.
+ */
+public record JournalEntrySharedEvent(int entryId, int patientId, int psychologistId, String title, LocalDateTime date, long changeVersion)
+{
+}
@@ -0,0 +1,11 @@
+package com.goodfellas.backend.event;
+
+import java.time.LocalDate;
+
+/**
+ * Published by MoodService after a mood row was inserted. Listeners that must only see committed moods use
+ * {@code @TransactionalEventListener}.
+ */
+public record MoodSubmittedEvent(int moodId, int patientId, LocalDate date, int value)
+{
+}
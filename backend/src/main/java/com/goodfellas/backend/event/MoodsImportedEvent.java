@@ -0,0 +1,9 @@
+package com.goodfellas.backend.event;
+
+/**
+ * Published by MoodImportService after history was imported for a patient. Listeners that must only see committed
+ * moods use {@code @TransactionalEventListener}.
+ */
+public record MoodsImportedEvent(int patientId, boolean includesToday)
+{
+}
@@ -0,0 +1,8 @@
+package com.goodfellas.backend.event;
+
+/**
+ * Published by PatientService when a patient without a psychologist was assigned to one.
+ */
+public record PatientAssignedEvent(int patientId, int psychologistId)
+{
+}
@@ -0,0 +1,62 @@
+package com.goodfellas.backend.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.IdClass;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Immutable;
+import org.hibernate.annotations.Subselect;
+import org.hibernate.annotations.Synchronize;
+
+import java.io.Serializable;
+
+/**
+ * Read-only view over both account tables, so that an account can be resolved by username in a single query
+ * no matter whether it belongs to a psychologist or to a patient.
+ */
+@Entity
+@Immutable
+@Subselect("""
+        select 'ROLE_PSYCHOLOGIST' as role, ps.id as user_id, ps.username as username, ps.password as password,
+               ps.first_name as first_name, ps.last_name as last_name, null as age
+        from psychologist ps
+        union all
+        select 'ROLE_PATIENT' as role, pa.id as user_id, pa.username as username, pa.password as password,
+               pa.first_name as first_name, pa.last_name as last_name, pa.age as age
+        from patient pa
+        """)
+@Synchronize({"psychologist", "patient"})
+@IdClass(Account.Key.class)
+@Data
+@NoArgsConstructor
+public class Account
+{
+    @Id
+    private String role;
+
+    @Id
+    @Column(name = "user_id")
+    private int userId;
+
+    private String username;
+
+    private String password;
+
+    private String firstName;
+
+    private String lastName;
+
+    private Integer age;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable
+    {
+        private String role;
+        private int userId;
+    }
+}
@@ -8,7 +8,13 @@ import lombok.NoArgsConstructor;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "journal_entry")
+@Table(name = "journal_entry",
+        // Serves the keyset pages of JournalEntryRepository.findSharedPage; id breaks ties between equal dates
+        indexes = {
+                @Index(name = "idx_journal_entry_patient_shared_date_id", columnList = "patient_id, allow_psychologist, date, id"),
+                // Serves the ?since= deltas of findSharedChanges
+                @Index(name = "idx_journal_entry_patient_shared_version", columnList = "patient_id, allow_psychologist, change_version")
+        })
 @Data
 @NoArgsConstructor
 public class JournalEntry
@@ -30,6 +36,10 @@ public class JournalEntry
     @Column(name = "allow_psychologist", nullable = false)
     private boolean allowPsychologist = false;
 
+    // Set from ChangeVersionClock on every change; the default only covers rows written before the column existed
+    @Column(name = "change_version", nullable = false, columnDefinition = "bigint default 0")
+    private long changeVersion;
+
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "patient_id", nullable = false)
     @JsonIgnore
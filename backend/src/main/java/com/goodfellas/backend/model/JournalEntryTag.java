@@ -0,0 +1,41 @@
+package com.goodfellas.backend.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One normalized tag of a journal entry. JournalEntry.tags keeps the text the patient typed; these rows are derived
+ * from it by JournalTagService so that filtering by tag and counting tags are answered from the (patient_id, tag)
+ * index.
+ */
+@Entity
+@Table(name = "journal_entry_tag",
+        uniqueConstraints = @UniqueConstraint(name = "uk_journal_entry_tag", columnNames = {"entry_id", "tag"}),
+        indexes = @Index(name = "idx_journal_entry_tag_patient_tag", columnList = "patient_id, tag, entry_id"))
+@Data
+@NoArgsConstructor
+public class JournalEntryTag
+{
+    public static final int MAX_LENGTH = 50;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private int id;
+
+    @Column(name = "entry_id", nullable = false)
+    private int entryId;
+
+    @Column(name = "patient_id", nullable = false)
+    private int patientId;
+
+    @Column(nullable = false, length = MAX_LENGTH)
+    private String tag;
+
+    public JournalEntryTag(int entryId, int patientId, String tag)
+    {
+        this.entryId = entryId;
+        this.patientId = patientId;
+        this.tag = tag;
+    }
+}
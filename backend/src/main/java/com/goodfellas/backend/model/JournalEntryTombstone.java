@@ -0,0 +1,29 @@
+package com.goodfellas.backend.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Marks a deleted shared journal entry, so that psychologists syncing with ?since= learn to drop it.
+ * Rows are kept for psycare.journal.tombstone-retention; clients that synced longer ago start over.
+ */
+@Entity
+@Table(name = "journal_entry_tombstone",
+        indexes = @Index(name = "idx_journal_entry_tombstone_patient_version", columnList = "patient_id, change_version"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class JournalEntryTombstone
+{
+    @Id
+    @Column(name = "entry_id")
+    private int entryId;
+
+    @Column(name = "patient_id", nullable = false)
+    private int patientId;
+
+    @Column(name = "change_version", nullable = false)
+    private long changeVersion;
+}
@@ -8,7 +8,10 @@ import lombok.NoArgsConstructor;
 import java.time.LocalDate;
 
 @Entity
-@Table(name = "mood")
+@Table(name = "mood",
+        uniqueConstraints = @UniqueConstraint(name = "uk_mood_patient_date", columnNames = {"patient_id", "date"}),
+        // Covers the (date, value) reads of MoodJdbcRepository so they can be answered from the index alone
+        indexes = @Index(name = "idx_mood_patient_date_value", columnList = "patient_id, date, value"))
 @Data
 @NoArgsConstructor
 public class Mood
@@ -0,0 +1,58 @@
+package com.goodfellas.backend.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.ManyToOne;
+import jakarta.persistence.Table;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import static jakarta.persistence.EnumType.STRING;
+import static jakarta.persistence.FetchType.LAZY;
+import static jakarta.persistence.GenerationType.IDENTITY;
+
+/**
+ * Mood deterioration flagged by the drop detector. It is shown to whichever psychologist the patient is assigned to.
+ */
+@Entity
+@Table(name = "mood_alert", indexes = @Index(name = "idx_mood_alert_patient", columnList = "patient_id"))
+@Data
+@NoArgsConstructor
+public class MoodAlert {
+
+    @Id
+    @GeneratedValue(strategy = IDENTITY)
+    private int id;
+
+    @ManyToOne(fetch = LAZY)
+    @JoinColumn(name = "patient_id", nullable = false)
+    private Patient patient;
+
+    @Enumerated(STRING)
+    @Column(nullable = false)
+    private MoodAlertType type;
+
+    @Column(name = "mood_date", nullable = false)
+    private LocalDate moodDate;
+
+    @Column(name = "mood_value", nullable = false)
+    private int moodValue;
+
+    /** Smoothed mood level of the patient before this entry. */
+    @Column(nullable = false)
+    private double baseline;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(nullable = false)
+    private boolean acknowledged;
+}
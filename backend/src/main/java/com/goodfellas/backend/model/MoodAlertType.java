@@ -0,0 +1,6 @@
+package com.goodfellas.backend.model;
+
+public enum MoodAlertType {
+    SHARP_DROP,
+    SUSTAINED_DROP
+}
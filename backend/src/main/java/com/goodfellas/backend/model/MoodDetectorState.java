@@ -0,0 +1,30 @@
+package com.goodfellas.backend.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Checkpoint of the in-memory mood drop detector of one patient, so that a restart does not reset its baseline.
+ */
+@Entity
+@Table(name = "mood_detector_state")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MoodDetectorState
+{
+    @Id
+    @Column(name = "patient_id")
+    private int patientId;
+
+    @Column(nullable = false)
+    private double baseline;
+
+    @Column(nullable = false)
+    private double cusum;
+
+    @Column(nullable = false)
+    private int observations;
+}
@@ -0,0 +1,102 @@
+package com.goodfellas.backend.model;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+
+/**
+ * Read-only mood history of one patient packed into two parallel primitive arrays, ordered by day.
+ * An entry costs 5 bytes instead of a Mood entity with its LocalDate and Patient proxy, so analytics and exports
+ * can walk years of history without materialising entities.
+ */
+public final class MoodSeries
+{
+    private static final MoodSeries EMPTY = new MoodSeries(new int[0], new byte[0], 0);
+
+    private final int[] epochDays;
+    private final byte[] values;
+    private final int size;
+
+    private MoodSeries(int[] epochDays, byte[] values, int size)
+    {
+        this.epochDays = epochDays;
+        this.values = values;
+        this.size = size;
+    }
+
+    public static MoodSeries empty()
+    {
+        return EMPTY;
+    }
+
+    public int size()
+    {
+        return size;
+    }
+
+    public boolean isEmpty()
+    {
+        return size == 0;
+    }
+
+    public int epochDay(int index)
+    {
+        return epochDays[index];
+    }
+
+    public LocalDate date(int index)
+    {
+        return LocalDate.ofEpochDay(epochDays[index]);
+    }
+
+    public int value(int index)
+    {
+        return values[index];
+    }
+
+    public static Builder builder(int expectedSize)
+    {
+        return new Builder(expectedSize);
+    }
+
+    public static final class Builder
+    {
+        private int[] epochDays;
+        private byte[] values;
+        private int size;
+
+        private Builder(int expectedSize)
+        {
+            int capacity = Math.max(expectedSize, 16);
+            this.epochDays = new int[capacity];
+            this.values = new byte[capacity];
+        }
+
+        /** Entries must be added in ascending day order. */
+        public Builder add(LocalDate date, int value)
+        {
+            return add((int) date.toEpochDay(), value);
+        }
+
+        public Builder add(int epochDay, int value)
+        {
+            if (size == epochDays.length)
+            {
+                epochDays = Arrays.copyOf(epochDays, size * 2);
+                values = Arrays.copyOf(values, size * 2);
+            }
+            epochDays[size] = epochDay;
+            values[size] = (byte) value;
+            size++;
+            return this;
+        }
+
+        public MoodSeries build()
+        {
+            if (size == 0)
+                return EMPTY;
+            if (size == epochDays.length)
+                return new MoodSeries(epochDays, values, size);
+            return new MoodSeries(Arrays.copyOf(epochDays, size), Arrays.copyOf(values, size), size);
+        }
+    }
+}
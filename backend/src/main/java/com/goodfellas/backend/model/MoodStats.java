@@ -0,0 +1,61 @@
+package com.goodfellas.backend.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+/**
+ * Running mood aggregates of one patient, updated together with every submitted mood so that statistics can be
+ * served without reading the mood table.
+ */
+@Entity
+@Table(name = "mood_stats")
+@Data
+@NoArgsConstructor
+public class MoodStats
+{
+    public static final int RECENT_DAYS = 90;
+
+    @Id
+    @Column(name = "patient_id")
+    private int patientId;
+
+    /**
+     * Value of each of the last 90 days up to lastDate, stored at index epochDay % 90. 0 means no entry that day.
+     */
+    @Column(name = "recent_values", nullable = false, length = RECENT_DAYS)
+    private byte[] recentValues = new byte[RECENT_DAYS];
+
+    @Column(name = "last_date")
+    private LocalDate lastDate;
+
+    @Column(nullable = false)
+    private int count;
+
+    @Column(nullable = false)
+    private long total;
+
+    @Column(name = "min_value", nullable = false)
+    private int minValue;
+
+    @Column(name = "max_value", nullable = false)
+    private int maxValue;
+
+    @Column(name = "current_streak", nullable = false)
+    private int currentStreak;
+
+    @Column(name = "longest_streak", nullable = false)
+    private int longestStreak;
+
+    @Version
+    @EqualsAndHashCode.Exclude
+    private long version;
+
+    public MoodStats(int patientId)
+    {
+        this.patientId = patientId;
+    }
+}
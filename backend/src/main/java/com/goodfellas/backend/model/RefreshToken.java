@@ -0,0 +1,37 @@
+package com.goodfellas.backend.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Single-use refresh token. Only the SHA-256 digest of the token is stored; the account data needed to issue a new
+ * access token is copied into the row so that a refresh is a single indexed lookup.
+ */
+@Entity
+@Table(name = "refresh_token")
+@Data
+@NoArgsConstructor
+public class RefreshToken
+{
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private int id;
+
+    @Column(name = "token_hash", unique = true, nullable = false, length = 44)
+    private String tokenHash;
+
+    @Column(name = "user_id", nullable = false)
+    private int userId;
+
+    @Column(nullable = false)
+    private String username;
+
+    @Column(nullable = false, length = 32)
+    private String role;
+
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+}
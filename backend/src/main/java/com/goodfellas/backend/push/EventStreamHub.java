@@ -0,0 +1,270 @@
+package com.goodfellas.backend.push;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Fan-out of server-sent events to the open /events streams of each account.
+ * An idle stream is only an SseEmitter parked in the servlet container, without a thread. Every subscriber has a
+ * small bounded queue drained by the pushSenderExecutor (see PushConfig), with at most one drain task per subscriber
+ * waiting in the executor's bounded queue. A client that falls a whole queue behind, or whose drain the executor
+ * rejects, is disconnected and resynchronises when its EventSource reconnects. Writes are blocking servlet I/O: a
+ * write to a client that stopped reading holds its sender thread until the container's write timeout, and a stream
+ * whose write takes longer than the send timeout is dropped from the fan-out right away. Emitters are completed by
+ * the thread that owns the subscriber's drain, because completing waits for a write in progress.
+ * A heartbeat comment keeps proxies from closing idle streams and detects clients that went away.
+ * Streams only receive the events of changes made on this instance. With several instances behind a load balancer
+ * a client may miss events, which is why every event is only a hint and the client catches up with
+ * GET /journal/shared?since= on reconnect; relaying events between instances would need a message broker.
+ */
+@Component
+public class EventStreamHub
+{
+    public record Recipient(String role, int id)
+    {
+        public static Recipient patient(int id)
+        {
+            return new Recipient("ROLE_PATIENT", id);
+        }
+
+        public static Recipient psychologist(int id)
+        {
+            return new Recipient("ROLE_PSYCHOLOGIST", id);
+        }
+    }
+
+    private static final Set<ResponseBodyEmitter.DataWithMediaType> HEARTBEAT = SseEmitter.event().comment("heartbeat").build();
+
+    private final ConcurrentHashMap<Recipient, CopyOnWriteArrayList<Subscriber>> subscribers = new ConcurrentHashMap<>();
+    private final AtomicInteger subscriberCount = new AtomicInteger();
+    private final Counter rejectedStreams;
+    private final Executor sender;
+    private final long emitterTimeoutMillis;
+    private final long sendTimeoutMillis;
+    private final int queueCapacity;
+    private final int maxStreamsPerAccount;
+
+    private final class Subscriber
+    {
+        final Recipient recipient;
+        final SseEmitter emitter;
+        final ArrayBlockingQueue<Set<ResponseBodyEmitter.DataWithMediaType>> queue = new ArrayBlockingQueue<>(queueCapacity);
+        final AtomicBoolean scheduled = new AtomicBoolean();
+        final AtomicBoolean closed = new AtomicBoolean();
+        volatile long sendingSince;
+
+        Subscriber(Recipient recipient, SseEmitter emitter)
+        {
+            this.recipient = recipient;
+            this.emitter = emitter;
+        }
+    }
+
+    @Autowired
+    public EventStreamHub(MeterRegistry meterRegistry,
+                          @Qualifier("pushSenderExecutor") Executor sender,
+                          @Value("${psycare.push.emitter-timeout:30m}") Duration emitterTimeout,
+                          @Value("${psycare.push.send-timeout:10s}") Duration sendTimeout,
+                          @Value("${psycare.push.queue-capacity:64}") int queueCapacity,
+                          @Value("${psycare.push.max-streams-per-account:5}") int maxStreamsPerAccount)
+    {
+        this.sender = sender;
+        this.emitterTimeoutMillis = emitterTimeout.toMillis();
+        this.sendTimeoutMillis = sendTimeout.toMillis();
+        this.queueCapacity = queueCapacity;
+        this.maxStreamsPerAccount = maxStreamsPerAccount;
+        this.rejectedStreams = meterRegistry.counter("push.streams.rejected");
+        meterRegistry.gauge("push.subscribers", subscriberCount);
+    }
+
+    /**
+     * Opens a stream for the account. The oldest stream of the account is closed once it has more than
+     * maxStreamsPerAccount of them (e.g. forgotten browser tabs).
+     */
+    public SseEmitter subscribe(Recipient recipient)
+    {
+        SseEmitter emitter = new SseEmitter(emitterTimeoutMillis);
+        Subscriber subscriber = new Subscriber(recipient, emitter);
+        emitter.onCompletion(() -> remove(subscriber));
+        emitter.onTimeout(() -> close(subscriber));
+        emitter.onError(error -> close(subscriber));
+
+        CopyOnWriteArrayList<Subscriber> streams = subscribers.compute(recipient, (key, existing) -> {
+            CopyOnWriteArrayList<Subscriber> list = existing == null ? new CopyOnWriteArrayList<>() : existing;
+            list.add(subscriber);
+            return list;
+        });
+        subscriberCount.incrementAndGet();
+        if (streams.size() > maxStreamsPerAccount)
+            close(streams.get(0));
+
+        enqueue(subscriber, SseEmitter.event().comment("connected").reconnectTime(5000).build());
+        return emitter;
+    }
+
+    /**
+     * Queues an event for every open stream of the account; returns at once.
+     */
+    public void send(Recipient recipient, String name, Object data)
+    {
+        List<Subscriber> streams = subscribers.get(recipient);
+        if (streams == null)
+            return;
+        Set<ResponseBodyEmitter.DataWithMediaType> event = SseEmitter.event().name(name).data(data, MediaType.APPLICATION_JSON).build();
+        for (Subscriber subscriber : streams)
+            enqueue(subscriber, event);
+    }
+
+    /**
+     * Closes every open stream of the account, e.g. when it logs out.
+     */
+    public void disconnect(Recipient recipient)
+    {
+        List<Subscriber> streams = subscribers.get(recipient);
+        if (streams != null)
+            streams.forEach(this::close);
+    }
+
+    public boolean hasSubscribers()
+    {
+        return subscriberCount.get() > 0;
+    }
+
+    public int subscriberCount()
+    {
+        return subscriberCount.get();
+    }
+
+    @Scheduled(fixedDelayString = "${psycare.push.heartbeat-interval:25s}")
+    public void heartbeat()
+    {
+        subscribers.values().forEach(streams -> streams.forEach(subscriber -> enqueue(subscriber, HEARTBEAT)));
+    }
+
+    /**
+     * Drops the streams whose current write has been blocked for longer than the send timeout, so that no more
+     * events are queued for a client that stopped reading.
+     */
+    @Scheduled(fixedDelayString = "${psycare.push.send-timeout:10s}")
+    public void dropStalledStreams()
+    {
+        long deadline = System.currentTimeMillis() - sendTimeoutMillis;
+        subscribers.values().forEach(streams -> streams.forEach(subscriber -> {
+            long since = subscriber.sendingSince;
+            if (since != 0 && since < deadline)
+                close(subscriber);
+        }));
+    }
+
+    @PreDestroy
+    public void closeAll()
+    {
+        subscribers.values().forEach(streams -> streams.forEach(this::close));
+    }
+
+    private void enqueue(Subscriber subscriber, Set<ResponseBodyEmitter.DataWithMediaType> event)
+    {
+        if (subscriber.closed.get())
+            return;
+        if (!subscriber.queue.offer(event))
+        {
+            close(subscriber);
+            return;
+        }
+        if (subscriber.scheduled.compareAndSet(false, true))
+            schedule(subscriber);
+    }
+
+    /**
+     * Must only be called by the thread that set the subscriber's scheduled flag.
+     */
+    private void schedule(Subscriber subscriber)
+    {
+        try
+        {
+            sender.execute(() -> drain(subscriber));
+        }
+        catch (RejectedExecutionException e)
+        {
+            // The sender backlog is full (or shutting down): drop this stream instead of queueing more work. No drain
+            // runs for it while this thread holds the scheduled flag, so no write is in progress to wait for
+            rejectedStreams.increment();
+            remove(subscriber);
+            subscriber.queue.clear();
+            subscriber.emitter.complete();
+        }
+    }
+
+    private void drain(Subscriber subscriber)
+    {
+        do
+        {
+            Set<ResponseBodyEmitter.DataWithMediaType> event;
+            while (!subscriber.closed.get() && (event = subscriber.queue.poll()) != null)
+            {
+                subscriber.sendingSince = System.currentTimeMillis();
+                try
+                {
+                    subscriber.emitter.send(event);
+                }
+                catch (IOException | IllegalStateException e)
+                {
+                    close(subscriber);
+                }
+                finally
+                {
+                    subscriber.sendingSince = 0;
+                }
+            }
+            if (subscriber.closed.get())
+            {
+                // The flag stays set, so no other drain is started for the closed subscriber
+                subscriber.queue.clear();
+                subscriber.emitter.complete();
+                return;
+            }
+            subscriber.scheduled.set(false);
+            // An event queued (or a close) after the last check but before the flag was cleared would otherwise wait
+        } while ((subscriber.closed.get() || !subscriber.queue.isEmpty()) && subscriber.scheduled.compareAndSet(false, true));
+    }
+
+    /**
+     * Stops queueing events for the subscriber; the emitter is completed by the drain that is running or started here.
+     */
+    private void close(Subscriber subscriber)
+    {
+        if (!subscriber.closed.compareAndSet(false, true))
+            return;
+        remove(subscriber);
+        subscriber.queue.clear();
+        if (subscriber.scheduled.compareAndSet(false, true))
+            schedule(subscriber);
+    }
+
+    private void remove(Subscriber subscriber)
+    {
+        subscriber.closed.set(true);
+        subscribers.computeIfPresent(subscriber.recipient, (recipient, streams) -> {
+            if (streams.remove(subscriber))
+                subscriberCount.decrementAndGet();
+            return streams.isEmpty() ? null : streams;
+        });
+    }
+}
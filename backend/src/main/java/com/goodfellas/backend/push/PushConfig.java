@@ -0,0 +1,36 @@
+package com.goodfellas.backend.push;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Configuration
+public class PushConfig
+{
+    /**
+     * Threads that write queued events to the /events streams. A write to a client that stopped reading holds its
+     * thread until the container's write timeout, so threads are started on demand up to the limit and stop again
+     * after a minute without work; a few stalled clients leave plenty of threads for everyone else.
+     * At most queueCapacity streams wait for a thread; beyond that the executor rejects the work and EventStreamHub
+     * drops the stream, whose client reconnects later.
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService pushSenderExecutor(@Value("${psycare.push.sender-threads:32}") int threads,
+                                              @Value("${psycare.push.sender-queue-capacity:10000}") int queueCapacity)
+    {
+        AtomicInteger counter = new AtomicInteger();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 1, TimeUnit.MINUTES, new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+            Thread thread = new Thread(runnable, "sse-sender-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+}
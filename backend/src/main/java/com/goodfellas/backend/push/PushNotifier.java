@@ -0,0 +1,46 @@
+package com.goodfellas.backend.push;
+
+import com.goodfellas.backend.event.AppointmentBookedEvent;
+import com.goodfellas.backend.event.JournalEntrySharedEvent;
+import com.goodfellas.backend.event.MoodSubmittedEvent;
+import com.goodfellas.backend.repository.PatientRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import static com.goodfellas.backend.push.EventStreamHub.Recipient;
+
+/**
+ * Turns domain events into server-sent events. Each listener runs after the commit of the change (or right away
+ * when it was made outside a transaction), so clients are never told about data they cannot read yet.
+ */
+@Component
+public class PushNotifier {
+
+    private final EventStreamHub hub;
+    private final PatientRepository patientRepository;
+
+    @Autowired
+    public PushNotifier(EventStreamHub hub, PatientRepository patientRepository) {
+        this.hub = hub;
+        this.patientRepository = patientRepository;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onJournalEntryShared(JournalEntrySharedEvent event) {
+        hub.send(Recipient.psychologist(event.psychologistId()), "journal-shared", event);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMoodSubmitted(MoodSubmittedEvent event) {
+        if (!hub.hasSubscribers())
+            return;
+        patientRepository.findPsychologistIdById(event.patientId())
+                .ifPresent(psychologistId -> hub.send(Recipient.psychologist(psychologistId), "mood-submitted", event));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onAppointmentBooked(AppointmentBookedEvent event) {
+        hub.send(Recipient.patient(event.patientId()), "appointment-booked", event);
+    }
+}
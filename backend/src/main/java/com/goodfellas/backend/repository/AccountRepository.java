@@ -0,0 +1,14 @@
+package com.goodfellas.backend.repository;
+
+import com.goodfellas.backend.model.Account;
+import org.springframework.data.repository.Repository;
+
+import java.util.Optional;
+
+public interface AccountRepository extends Repository<Account, Account.Key>
+{
+    /**
+     * Psychologist accounts sort before patient accounts, matching the order in which the tables used to be probed.
+     */
+    Optional<Account> findFirstByUsernameOrderByRoleDesc(String username);
+}
@@ -1,22 +1,95 @@
 package com.goodfellas.backend.repository;
 
+import com.goodfellas.backend.dto.JournalEntrySummaryDTO;
 import com.goodfellas.backend.model.JournalEntry;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 
 public interface JournalEntryRepository extends JpaRepository<JournalEntry, Integer>
 {
-    List<JournalEntry> findByPatient_Username(String username);
+    List<JournalEntry> findByPatient_Id(int patientId);
 
+    @Query("select je from JournalEntry je where je.patient.psychologist.id = :psychologistId and je.allowPsychologist = true")
+    List<JournalEntry> findSharedByPsychologistId(int psychologistId);
+
+    Optional<JournalEntry> findByIdAndPatient_Id(int id, int patientId);
+
+    @Query("select je from JournalEntry je join fetch je.patient p left join fetch p.psychologist " +
+           "where je.id = :id and p.id = :patientId")
+    Optional<JournalEntry> findOwnedWithPatient(int id, int patientId);
+
+    @Modifying
+    @Query("delete from JournalEntry je where je.id = :id and je.patient.id = :patientId")
+    int deleteOwned(int id, int patientId);
+
+    // List queries select only a preview of the TEXT column; the full text is read by findById for GET /journal/{id}
+    String SUMMARY = "new com.goodfellas.backend.dto.JournalEntrySummaryDTO(je.id, je.title, je.tags, je.date, "
+            + "je.allowPsychologist, je.patient.id, substring(je.text, 1, " + JournalEntrySummaryDTO.PREVIEW_LENGTH + "), length(je.text), je.changeVersion)";
+
+    @Query("select " + SUMMARY + " from JournalEntry je where je.patient.id = :patientId order by je.date desc")
+    List<JournalEntrySummaryDTO> findSummariesByPatientId(int patientId);
+
+    @Query("select " + SUMMARY + " from JournalEntry je where je.patient.id = :patientId " +
+           "and je.id in (select t.entryId from JournalEntryTag t where t.patientId = :patientId and t.tag = :tag) " +
+           "order by je.date desc")
+    List<JournalEntrySummaryDTO> findSummariesByPatientIdAndTag(int patientId, String tag);
+
+    /**
+     * One page of the entries shared with a psychologist, newest first, starting after (beforeDate, beforeId).
+     * The cursor is a row-value comparison, so each assigned patient's entries are read from
+     * idx_journal_entry_patient_shared_date_id starting at the cursor instead of from the newest entry.
+     */
+    @Query("select " + SUMMARY + " from JournalEntry je where je.patient.psychologist.id = :psychologistId " +
+           "and je.allowPsychologist = true " +
+           "and (je.date, je.id) < (:beforeDate, :beforeId) " +
+           "order by je.date desc, je.id desc")
+    List<JournalEntrySummaryDTO> findSharedPage(int psychologistId, LocalDateTime beforeDate, int beforeId, Limit limit);
+
+    /**
+     * Same as findSharedPage for one patient: a single backward range scan of idx_journal_entry_patient_shared_date_id
+     * that stops after limit rows.
+     */
+    @Query("select " + SUMMARY + " from JournalEntry je where je.patient.id = :patientId " +
+           "and je.allowPsychologist = true " +
+           "and (je.date, je.id) < (:beforeDate, :beforeId) " +
+           "order by je.date desc, je.id desc")
+    List<JournalEntrySummaryDTO> findSharedPageOfPatient(int patientId, LocalDateTime beforeDate, int beforeId, Limit limit);
+
+    /**
+     * Shared entries created, edited or shared after the given version, oldest change first.
+     */
+    @Query("select " + SUMMARY + " from JournalEntry je where je.patient.psychologist.id = :psychologistId " +
+           "and je.allowPsychologist = true and je.changeVersion > :since order by je.changeVersion")
+    List<JournalEntrySummaryDTO> findSharedChanges(int psychologistId, long since, Limit limit);
+
+    @Query("select coalesce(max(je.changeVersion), 0) from JournalEntry je " +
+           "where je.patient.psychologist.id = :psychologistId and je.allowPsychologist = true")
+    long findLatestSharedVersion(int psychologistId);
+
+    @Query("select je.id from JournalEntry je where je.patient.id = :patientId and je.allowPsychologist = true")
+    List<Integer> findSharedIdsByPatientId(int patientId);
+
+    @Modifying
+    @Query("update JournalEntry je set je.changeVersion = :version where je.id = :id")
+    int updateChangeVersion(int id, long version);
+
+    /**
+     * Entries with tags but no rows in journal_entry_tag, i.e. written before the tag index existed. Tags made only of
+     * commas, '#' and whitespace normalize to nothing and never get rows, so they are left out; otherwise they would
+     * be selected again on every start.
+     */
     @Query("""
         select je
         from JournalEntry je
-        join fetch je.patient p
-        where p.psychologist.id = :psychologistId
-          and je.allowPsychologist = true
-        order by je.date desc
+        where je.tags is not null
+          and replace(replace(replace(replace(replace(replace(je.tags, ',', ''), '#', ''), ' ', ''), '\t', ''), '\n', ''), '\r', '') <> ''
+          and not exists (select t from JournalEntryTag t where t.entryId = je.id)
     """)
-    List<JournalEntry> findSharedEntriesForPsychologist(int psychologistId);
+    List<JournalEntry> findWithUnindexedTags();
 }
\ No newline at end of file
@@ -0,0 +1,22 @@
+package com.goodfellas.backend.repository;
+
+import com.goodfellas.backend.dto.TagCountDTO;
+import com.goodfellas.backend.model.JournalEntryTag;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+import java.util.List;
+
+public interface JournalEntryTagRepository extends JpaRepository<JournalEntryTag, Integer>
+{
+    List<JournalEntryTag> findByEntryId(int entryId);
+
+    @Modifying
+    @Query("delete from JournalEntryTag t where t.entryId = :entryId")
+    int deleteByEntryId(int entryId);
+
+    @Query("select new com.goodfellas.backend.dto.TagCountDTO(t.tag, count(t)) from JournalEntryTag t " +
+           "where t.patientId = :patientId group by t.tag order by count(t) desc, t.tag")
+    List<TagCountDTO> countByTag(int patientId);
+}
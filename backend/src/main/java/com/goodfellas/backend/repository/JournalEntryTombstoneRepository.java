@@ -0,0 +1,36 @@
+package com.goodfellas.backend.repository;
+
+import com.goodfellas.backend.model.JournalEntryTombstone;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+public interface JournalEntryTombstoneRepository extends JpaRepository<JournalEntryTombstone, Integer>
+{
+    @Query("select t from JournalEntryTombstone t " +
+           "where t.patientId in (select p.id from Patient p where p.psychologist.id = :psychologistId) " +
+           "and t.changeVersion > :since and t.changeVersion <= :until order by t.changeVersion")
+    List<JournalEntryTombstone> findDeletedForPsychologist(int psychologistId, long since, long until);
+
+    @Query("select coalesce(max(t.changeVersion), 0) from JournalEntryTombstone t " +
+           "where t.patientId in (select p.id from Patient p where p.psychologist.id = :psychologistId)")
+    long findLatestVersionForPsychologist(int psychologistId);
+
+    /**
+     * Writes the tombstone of an entry if it belongs to the patient and is shared, without loading it.
+     * @return 1 if a tombstone was written.
+     */
+    @Modifying
+    @Query("insert into JournalEntryTombstone (entryId, patientId, changeVersion) " +
+           "select je.id, je.patient.id, :version from JournalEntry je " +
+           "where je.id = :entryId and je.patient.id = :patientId and je.allowPsychologist = true")
+    int insertForSharedEntry(int entryId, int patientId, long version);
+
+    @Transactional
+    @Modifying
+    @Query("delete from JournalEntryTombstone t where t.changeVersion < :version")
+    int deleteOlderThan(long version);
+}
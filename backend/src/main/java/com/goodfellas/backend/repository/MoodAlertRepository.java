@@ -0,0 +1,26 @@
+package com.goodfellas.backend.repository;
+
+import com.goodfellas.backend.dto.MoodAlertDTO;
+import com.goodfellas.backend.model.MoodAlert;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+public interface MoodAlertRepository extends JpaRepository<MoodAlert, Integer> {
+
+    @Query("select new com.goodfellas.backend.dto.MoodAlertDTO(a.id, p.id, p.firstName, p.lastName, a.type, a.moodDate, a.moodValue, a.baseline, a.createdAt, a.acknowledged) " +
+           "from MoodAlert a join a.patient p " +
+           "where p.psychologist.id = :psychologistId and (:includeAcknowledged = true or a.acknowledged = false) " +
+           "order by a.createdAt desc, a.id desc")
+    List<MoodAlertDTO> findForPsychologist(int psychologistId, boolean includeAcknowledged, Limit limit);
+
+    @Transactional
+    @Modifying
+    @Query("update MoodAlert a set a.acknowledged = true " +
+           "where a.id = :alertId and a.patient.id in (select p.id from Patient p where p.psychologist.id = :psychologistId)")
+    int acknowledge(int alertId, int psychologistId);
+}
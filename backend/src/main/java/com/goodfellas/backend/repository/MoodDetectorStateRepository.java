@@ -0,0 +1,8 @@
+package com.goodfellas.backend.repository;
+
+import com.goodfellas.backend.model.MoodDetectorState;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface MoodDetectorStateRepository extends JpaRepository<MoodDetectorState, Integer>
+{
+}
@@ -0,0 +1,101 @@
+package com.goodfellas.backend.repository;
+
+import com.goodfellas.backend.model.MoodSeries;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.AbstractList;
+
+/**
+ * Reads mood history straight into a MoodSeries, bypassing the persistence context. Used by the analytics and
+ * export paths, which only need (date, value) pairs.
+ */
+@Repository
+public class MoodJdbcRepository
+{
+    private static final ResultSetExtractor<MoodSeries> SERIES_EXTRACTOR = rs -> {
+        MoodSeries.Builder series = MoodSeries.builder(64);
+        while (rs.next())
+            series.add(rs.getObject(1, LocalDate.class), rs.getInt(2));
+        return series.build();
+    };
+
+    private static final int BATCH_SIZE = 1000;
+    private static final String INSERT_IGNORING_DUPLICATES = "insert into mood (patient_id, date, value) values (?, ?, ?) on conflict do nothing";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public MoodJdbcRepository(JdbcTemplate jdbcTemplate)
+    {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Inserts the mood unless the patient already has one for that date, in a single statement.
+     * @return the id of the new row, or 0 if it conflicted with the (patient_id, date) unique constraint.
+     */
+    public int insertIfAbsent(int patientId, LocalDate date, int value)
+    {
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        int inserted = jdbcTemplate.update(connection -> {
+            PreparedStatement ps = connection.prepareStatement(INSERT_IGNORING_DUPLICATES, new String[]{"id"});
+            ps.setInt(1, patientId);
+            ps.setObject(2, date);
+            ps.setInt(3, value);
+            return ps;
+        }, keyHolder);
+        return inserted == 0 ? 0 : keyHolder.getKeyAs(Number.class).intValue();
+    }
+
+    public MoodSeries findSeries(int patientId)
+    {
+        return jdbcTemplate.query("select date, value from mood where patient_id = ? order by date",
+                SERIES_EXTRACTOR, patientId);
+    }
+
+    public MoodSeries findSeries(int patientId, LocalDate from, LocalDate to)
+    {
+        return jdbcTemplate.query("select date, value from mood where patient_id = ? and date between ? and ? order by date",
+                SERIES_EXTRACTOR, patientId, from, to);
+    }
+
+    /**
+     * Inserts the given days in JDBC batches, skipping days the patient already has.
+     * @return per entry 1 if it was inserted and 0 if it conflicted with an existing mood. This needs the driver to
+     * report a count per statement (PostgreSQL does unless reWriteBatchedInserts is on); SUCCESS_NO_INFO is counted
+     * as inserted.
+     */
+    public int[] insertIgnoringDuplicates(int patientId, int[] epochDays, byte[] values, int count)
+    {
+        int[] inserted = new int[count];
+        int[][] batches = jdbcTemplate.batchUpdate(INSERT_IGNORING_DUPLICATES,
+                new AbstractList<Integer>()
+                {
+                    @Override
+                    public Integer get(int index) { return index; }
+
+                    @Override
+                    public int size() { return count; }
+                },
+                BATCH_SIZE,
+                (ps, index) -> {
+                    ps.setInt(1, patientId);
+                    ps.setObject(2, LocalDate.ofEpochDay(epochDays[index]));
+                    ps.setInt(3, values[index]);
+                });
+
+        int position = 0;
+        for (int[] batch : batches)
+            for (int updateCount : batch)
+                inserted[position++] = updateCount == Statement.SUCCESS_NO_INFO ? 1 : updateCount;
+        return inserted;
+    }
+}
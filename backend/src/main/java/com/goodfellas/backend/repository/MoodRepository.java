@@ -1,7 +1,9 @@
 package com.goodfellas.backend.repository;
 
 import com.goodfellas.backend.model.Mood;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 
 import java.time.LocalDate;
 import java.util.List;
@@ -9,6 +11,14 @@ import java.util.Optional;
 
 public interface MoodRepository extends JpaRepository<Mood, Integer>
 {
-    List<Mood> findByPatient_Username(String username);
-    Optional<Mood> findByPatient_UsernameAndDate(String username, LocalDate date);
-}
\ No newline at end of file
+    Optional<Mood> findByPatient_IdAndDate(int patientId, LocalDate date);
+
+    /**
+     * Keyset page of a patient's moods, newest first, strictly after the (beforeDate, beforeId) position.
+     * Served by the (patient_id, date) index, so the cost does not depend on how deep the page is.
+     */
+    @Query("select m from Mood m where m.patient.id = :patientId and m.date >= :from " +
+           "and (m.date < :beforeDate or (m.date = :beforeDate and m.id < :beforeId)) " +
+           "order by m.date desc, m.id desc")
+    List<Mood> findPage(int patientId, LocalDate from, LocalDate beforeDate, int beforeId, Limit limit);
+}
@@ -0,0 +1,8 @@
+package com.goodfellas.backend.repository;
+
+import com.goodfellas.backend.model.MoodStats;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface MoodStatsRepository extends JpaRepository<MoodStats, Integer>
+{
+}
@@ -1,8 +1,13 @@
 package com.goodfellas.backend.repository;
 
+import com.goodfellas.backend.dto.PatientMoodOverviewDTO;
 import com.goodfellas.backend.model.Patient;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
 
@@ -12,4 +17,35 @@ public interface PatientRepository extends JpaRepository<Patient, Integer>
     Boolean existsByUsername(String username);
     List<Patient> findByPsychologistIsNull();
     List<Patient> findByPsychologistId(int psychologistId);
+    boolean existsByIdAndPsychologistId(int id, int psychologistId);
+
+    /**
+     * Mood overview of a psychologist's whole caseload in one statement: the latest mood of every patient plus the
+     * averages of the last 7 days (after weekStart) and of the 7 days before. Only moods after previousWeekStart are
+     * joined; the latest mood is looked up through the (patient_id, date) index.
+     */
+    @Query("select new com.goodfellas.backend.dto.PatientMoodOverviewDTO(p.id, p.firstName, p.lastName, p.username, " +
+           "(select l.value from Mood l where l.patient.id = p.id and l.date = (select max(d.date) from Mood d where d.patient.id = p.id)), " +
+           "(select max(d.date) from Mood d where d.patient.id = p.id), " +
+           "avg(case when m.date > :weekStart then m.value end), " +
+           "avg(case when m.date <= :weekStart then m.value end)) " +
+           "from Patient p left join Mood m on m.patient.id = p.id and m.date > :previousWeekStart " +
+           "where p.psychologist.id = :psychologistId " +
+           "group by p.id, p.firstName, p.lastName, p.username " +
+           "order by p.lastName, p.firstName")
+    List<PatientMoodOverviewDTO> findMoodOverview(int psychologistId, LocalDate weekStart, LocalDate previousWeekStart);
+
+    @Query("select p.id from Patient p")
+    List<Integer> findAllIds();
+
+    @Query("select p.psychologist.id from Patient p where p.id = :patientId and p.psychologist is not null")
+    Optional<Integer> findPsychologistIdById(int patientId);
+
+    @Query("select p.id from Patient p where p.psychologist.id = :psychologistId")
+    List<Integer> findIdsByPsychologistId(int psychologistId);
+
+    @Transactional
+    @Modifying
+    @Query("update Patient p set p.password = :password where p.id = :id")
+    int updatePassword(int id, String password);
 }
@@ -2,6 +2,9 @@ package com.goodfellas.backend.repository;
 
 import com.goodfellas.backend.model.Psychologist;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.Optional;
 
@@ -9,4 +12,9 @@ public interface PsychologistRepository extends JpaRepository<Psychologist, Inte
 {
     Optional<Psychologist> findByUsername(String username);
     Boolean existsByUsername(String username);
+
+    @Transactional
+    @Modifying
+    @Query("update Psychologist p set p.password = :password where p.id = :id")
+    int updatePassword(int id, String password);
 }
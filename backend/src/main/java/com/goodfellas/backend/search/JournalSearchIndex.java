@@ -0,0 +1,312 @@
+package com.goodfellas.backend.search;
+
+import com.goodfellas.backend.event.JournalEntryChangedEvent;
+import com.goodfellas.backend.event.JournalEntryDeletedEvent;
+import com.goodfellas.backend.event.PatientAssignedEvent;
+import com.goodfellas.backend.model.JournalEntry;
+import com.goodfellas.backend.model.Psychologist;
+import com.goodfellas.backend.repository.JournalEntryRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+
+/**
+ * In-memory inverted index over the journal entries. Each patient has an index of their own entries, and each
+ * psychologist an index of the entries shared with them by all of their patients, so a search is always ranked
+ * against one corpus. An index is built from the database on its first search and then kept current from the events
+ * JournalEntryService publishes on every create, update, share and delete, once they are committed. Those events only
+ * reach the instance that handled the write, so indexes are also rebuilt once they are older than index-ttl.
+ * A query only walks the posting lists of its own terms, so its cost follows the number of matching entries rather
+ * than the size of the journal. Results are ranked with BM25; title words weigh three times and tags twice as much
+ * as words in the text.
+ */
+@Component
+public class JournalSearchIndex
+{
+    public record Hit(int entryId, int patientId, double score) {}
+
+    private record Scope(boolean psychologist, int id) {}
+
+    private static final int TITLE_WEIGHT = 3;
+    private static final int TAGS_WEIGHT = 2;
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    private final JournalEntryRepository journalRepository;
+    private final int maxIndexes;
+    private final long ttlMillis;
+    private final LongSupplier clock;
+    // An index is published as a future before it is loaded, so the load runs outside the map's locks and
+    // concurrent searches of the same scope wait for it instead of loading it again
+    private final ConcurrentHashMap<Scope, CompletableFuture<Corpus>> indexes = new ConcurrentHashMap<>();
+
+    @Autowired
+    public JournalSearchIndex(JournalEntryRepository journalRepository,
+                              @Value("${psycare.journal.search.max-indexes:10000}") int maxIndexes,
+                              @Value("${psycare.journal.search.index-ttl:5m}") Duration ttl)
+    {
+        this(journalRepository, maxIndexes, ttl, System::currentTimeMillis);
+    }
+
+    public JournalSearchIndex(JournalEntryRepository journalRepository, int maxIndexes, Duration ttl, LongSupplier clock)
+    {
+        this.journalRepository = journalRepository;
+        this.maxIndexes = maxIndexes;
+        this.ttlMillis = ttl.toMillis();
+        this.clock = clock;
+    }
+
+    /**
+     * @return at most limit of the patient's own entries, best first.
+     */
+    public List<Hit> search(int patientId, String query, int limit)
+    {
+        return search(new Scope(false, patientId), query, limit);
+    }
+
+    /**
+     * @return at most limit of the entries shared with the psychologist, best first.
+     */
+    public List<Hit> searchShared(int psychologistId, String query, int limit)
+    {
+        return search(new Scope(true, psychologistId), query, limit);
+    }
+
+    private List<Hit> search(Scope scope, String query, int limit)
+    {
+        Set<String> terms = new LinkedHashSet<>(JournalTokenizer.terms(query));
+        if (terms.isEmpty())
+            return List.of();
+        return indexFor(scope).search(terms, limit);
+    }
+
+    /**
+     * Adds or replaces an entry. Indexes that were not built yet are skipped; they will read the entry from the
+     * database when they are built.
+     */
+    public void index(JournalEntry entry)
+    {
+        Document document = document(entry);
+        update(new Scope(false, document.patientId()), index -> index.put(entry.getId(), document));
+        if (!entry.isAllowPsychologist())
+            return;
+        Psychologist psychologist = entry.getPatient().getPsychologist();
+        if (psychologist != null)
+            update(new Scope(true, psychologist.getId()), index -> index.put(entry.getId(), document));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onEntryChanged(JournalEntryChangedEvent event)
+    {
+        index(event.entry());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onEntryDeleted(JournalEntryDeletedEvent event)
+    {
+        remove(event.patientId(), event.entryId());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPatientAssigned(PatientAssignedEvent event)
+    {
+        // The new psychologist's index lacks the entries the patient shared before; it is rebuilt on its next search
+        indexes.remove(new Scope(true, event.psychologistId()));
+    }
+
+    public void remove(int patientId, int entryId)
+    {
+        update(new Scope(false, patientId), index -> index.remove(entryId));
+        indexes.forEach((scope, future) -> {
+            if (scope.psychologist())
+                future.thenAccept(index -> index.remove(entryId));
+        });
+    }
+
+    private void update(Scope scope, Consumer<Corpus> change)
+    {
+        // Runs right away on a built index; on one still loading it runs once the load is done, so a change
+        // committed after the load read the entries is not lost
+        CompletableFuture<Corpus> future = indexes.get(scope);
+        if (future != null)
+            future.thenAccept(change);
+    }
+
+    private Corpus indexFor(Scope scope)
+    {
+        while (true)
+        {
+            CompletableFuture<Corpus> future = indexes.get(scope);
+            if (future == null)
+            {
+                CompletableFuture<Corpus> created = new CompletableFuture<>();
+                future = indexes.putIfAbsent(scope, created);
+                if (future == null)
+                    return build(scope, created);
+            }
+
+            Corpus index;
+            try
+            {
+                index = future.join();
+            }
+            catch (CompletionException e)
+            {
+                indexes.remove(scope, future);
+                throw e.getCause() instanceof RuntimeException cause ? cause : e;
+            }
+            long now = clock.getAsLong();
+            if (now - index.builtAt < ttlMillis)
+            {
+                index.lastUsed = now;
+                return index;
+            }
+            indexes.remove(scope, future);
+        }
+    }
+
+    private Corpus build(Scope scope, CompletableFuture<Corpus> created)
+    {
+        try
+        {
+            evictIfFull();
+            Corpus index = new Corpus(clock.getAsLong());
+            List<JournalEntry> entries = scope.psychologist()
+                    ? journalRepository.findSharedByPsychologistId(scope.id())
+                    : journalRepository.findByPatient_Id(scope.id());
+            for (JournalEntry entry : entries)
+                index.put(entry.getId(), document(entry));
+            created.complete(index);
+            return index;
+        }
+        catch (RuntimeException e)
+        {
+            indexes.remove(scope, created);
+            created.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    private void evictIfFull()
+    {
+        if (indexes.size() <= maxIndexes)
+            return;
+        // Indexes are rebuilt on demand, so dropping the one searched longest ago only costs its next search a reload
+        Scope oldest = null;
+        long oldestUse = Long.MAX_VALUE;
+        for (Map.Entry<Scope, CompletableFuture<Corpus>> entry : indexes.entrySet())
+        {
+            Corpus index = entry.getValue().getNow(null);
+            if (index != null && index.lastUsed < oldestUse)
+            {
+                oldest = entry.getKey();
+                oldestUse = index.lastUsed;
+            }
+        }
+        if (oldest != null)
+            indexes.remove(oldest);
+    }
+
+    private static Document document(JournalEntry entry)
+    {
+        Map<String, Integer> frequencies = new HashMap<>();
+        int length = addTerms(frequencies, entry.getTitle(), TITLE_WEIGHT)
+                + addTerms(frequencies, entry.getTags(), TAGS_WEIGHT)
+                + addTerms(frequencies, entry.getText(), 1);
+        return new Document(frequencies, length, entry.getPatient().getId(), entry.getChangeVersion());
+    }
+
+    private static int addTerms(Map<String, Integer> frequencies, String text, int weight)
+    {
+        List<String> terms = JournalTokenizer.terms(text);
+        for (String term : terms)
+            frequencies.merge(term, weight, Integer::sum);
+        return terms.size() * weight;
+    }
+
+    private record Document(Map<String, Integer> frequencies, int length, int patientId, long version) {}
+
+    private static final class Corpus
+    {
+        private final long builtAt;
+        private volatile long lastUsed;
+        private final Map<String, Map<Integer, Integer>> postings = new HashMap<>();
+        private final Map<Integer, Document> documents = new HashMap<>();
+        private long totalLength;
+
+        Corpus(long builtAt)
+        {
+            this.builtAt = builtAt;
+            this.lastUsed = builtAt;
+        }
+
+        synchronized void put(int entryId, Document document)
+        {
+            // Events of concurrent edits may arrive out of commit order; keep whichever version is newest
+            Document current = documents.get(entryId);
+            if (current != null && current.version() > document.version())
+                return;
+            remove(entryId);
+            documents.put(entryId, document);
+            totalLength += document.length();
+            document.frequencies().forEach((term, frequency) ->
+                    postings.computeIfAbsent(term, t -> new HashMap<>()).put(entryId, frequency));
+        }
+
+        synchronized void remove(int entryId)
+        {
+            Document document = documents.remove(entryId);
+            if (document == null)
+                return;
+            totalLength -= document.length();
+            for (String term : document.frequencies().keySet())
+            {
+                Map<Integer, Integer> posting = postings.get(term);
+                posting.remove(entryId);
+                if (posting.isEmpty())
+                    postings.remove(term);
+            }
+        }
+
+        synchronized List<Hit> search(Set<String> terms, int limit)
+        {
+            int documentCount = documents.size();
+            if (documentCount == 0)
+                return List.of();
+            double averageLength = Math.max(1.0, (double) totalLength / documentCount);
+
+            Map<Integer, Double> scores = new HashMap<>();
+            for (String term : terms)
+            {
+                Map<Integer, Integer> posting = postings.get(term);
+                if (posting == null)
+                    continue;
+                double idf = Math.log(1 + (documentCount - posting.size() + 0.5) / (posting.size() + 0.5));
+                posting.forEach((entryId, frequency) -> {
+                    Document document = documents.get(entryId);
+                    double norm = K1 * (1 - B + B * document.length() / averageLength);
+                    scores.merge(entryId, idf * frequency * (K1 + 1) / (frequency + norm), Double::sum);
+                });
+            }
+
+            PriorityQueue<Hit> best = new PriorityQueue<>(Comparator.comparingDouble(Hit::score));
+            scores.forEach((entryId, score) -> {
+                best.add(new Hit(entryId, documents.get(entryId).patientId(), score));
+                if (best.size() > limit)
+                    best.poll();
+            });
+            List<Hit> hits = new ArrayList<>(best);
+            hits.sort(Comparator.comparingDouble(Hit::score).reversed());
+            return hits;
+        }
+    }
+}
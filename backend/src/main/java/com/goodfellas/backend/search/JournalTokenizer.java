@@ -0,0 +1,103 @@
+package com.goodfellas.backend.search;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Turns journal text into search terms: words are lower-cased, stripped of diacritics (so "fericită" matches
+ * "fericita"), common stop words are dropped and English suffixes are stripped so that "feeling", "feels" and
+ * "feel" share one term. Queries go through the same steps as the indexed text.
+ */
+public final class JournalTokenizer
+{
+    private static final Pattern WORD = Pattern.compile("[\\p{L}\\p{N}]+");
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+    private static final Set<String> STOP_WORDS = Set.of(
+            "a", "an", "and", "are", "as", "at", "be", "but", "by", "for", "from", "had", "has", "have", "he", "her",
+            "his", "i", "if", "in", "is", "it", "its", "me", "my", "of", "on", "or", "our", "she", "so", "that", "the",
+            "their", "them", "then", "there", "they", "this", "to", "was", "we", "were", "with", "you", "your");
+
+    private JournalTokenizer()
+    {
+    }
+
+    public static List<String> terms(String text)
+    {
+        List<String> terms = new ArrayList<>();
+        if (text == null)
+            return terms;
+        Matcher matcher = WORD.matcher(text);
+        while (matcher.find())
+        {
+            String term = term(matcher.group());
+            if (term != null)
+                terms.add(term);
+        }
+        return terms;
+    }
+
+    /**
+     * @return the search term for a single word, or null if the word is not indexed.
+     */
+    public static String term(String word)
+    {
+        String normalized = MARKS.matcher(Normalizer.normalize(word, Normalizer.Form.NFD)).replaceAll("").toLowerCase(Locale.ROOT);
+        if (normalized.length() < 2 || STOP_WORDS.contains(normalized))
+            return null;
+        return stem(normalized);
+    }
+
+    static String stem(String word)
+    {
+        int length = word.length();
+        if (length > 6 && word.endsWith("ness"))
+            return word.substring(0, length - 4);
+        if (length > 5 && word.endsWith("ing"))
+            return word.substring(0, length - 3);
+        if (length > 4 && word.endsWith("ies"))
+            return word.substring(0, length - 3) + "y";
+        if (length > 4 && word.endsWith("ed"))
+            return word.substring(0, length - 2);
+        if (length > 4 && word.endsWith("ly"))
+            return word.substring(0, length - 2);
+        if (length > 3 && word.endsWith("s") && !word.endsWith("ss"))
+            return word.substring(0, length - 1);
+        return word;
+    }
+
+    /**
+     * Cuts a window of about maxLength characters out of text, centred on the first word matching one of the terms.
+     */
+    public static String snippet(String text, Set<String> terms, int maxLength)
+    {
+        if (text == null)
+            return "";
+        if (text.length() <= maxLength)
+            return text;
+
+        int hit = 0;
+        Matcher matcher = WORD.matcher(text);
+        while (matcher.find())
+        {
+            String term = term(matcher.group());
+            if (term != null && terms.contains(term))
+            {
+                hit = matcher.start();
+                break;
+            }
+        }
+
+        int start = Math.max(0, Math.min(hit - maxLength / 3, text.length() - maxLength));
+        int end = Math.min(text.length(), start + maxLength);
+        while (start > 0 && start < hit && !Character.isWhitespace(text.charAt(start - 1)))
+            start++;
+        while (end < text.length() && end > hit && !Character.isWhitespace(text.charAt(end)))
+            end--;
+        return (start > 0 ? "…" : "") + text.substring(start, end).strip() + (end < text.length() ? "…" : "");
+    }
+}
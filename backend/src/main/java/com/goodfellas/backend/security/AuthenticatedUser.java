@@ -0,0 +1,36 @@
+package com.goodfellas.backend.security;
+
+import com.goodfellas.backend.dto.AccountProfileDTO;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+
+import java.util.Collections;
+
+/**
+ * Principal placed in the security context. Besides the username it carries the numeric id and the role of the
+ * account, so that both can be embedded in the JWT and read back without querying the psychologist/patient tables.
+ * The display profile is only present when the principal was loaded from the database (e.g. during login).
+ */
+@Getter
+@EqualsAndHashCode(callSuper = true)
+public class AuthenticatedUser extends User
+{
+    private final int id;
+    private final String role;
+    private final AccountProfileDTO profile;
+
+    public AuthenticatedUser(int id, String username, String password, String role)
+    {
+        this(id, username, password, role, null);
+    }
+
+    public AuthenticatedUser(int id, String username, String password, String role, AccountProfileDTO profile)
+    {
+        super(username, password, Collections.singletonList(new SimpleGrantedAuthority(role)));
+        this.id = id;
+        this.role = role;
+        this.profile = profile;
+    }
+}
@@ -0,0 +1,68 @@
+package com.goodfellas.backend.security;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * DaoAuthenticationProvider that upgrades outdated password hashes (e.g. after the BCrypt work factor was raised)
+ * after a successful login without making the user wait for the extra hash: the new hash is computed and handed to
+ * the {@link UserDetailsPasswordService} on a background executor. If the upgrade is dropped or fails, it is simply
+ * attempted again at the next login.
+ */
+public class BackgroundRehashAuthenticationProvider extends DaoAuthenticationProvider
+{
+    private static final Logger log = LoggerFactory.getLogger(BackgroundRehashAuthenticationProvider.class);
+
+    private final UserDetailsPasswordService passwordService;
+    private final Executor rehashExecutor;
+
+    public BackgroundRehashAuthenticationProvider(UserDetailsService userDetailsService,
+                                                  UserDetailsPasswordService passwordService,
+                                                  PasswordEncoder passwordEncoder,
+                                                  Executor rehashExecutor)
+    {
+        super(userDetailsService);
+        setPasswordEncoder(passwordEncoder);
+        this.passwordService = passwordService;
+        this.rehashExecutor = rehashExecutor;
+    }
+
+    @Override
+    protected Authentication createSuccessAuthentication(Object principal, Authentication authentication, UserDetails user)
+    {
+        if (authentication.getCredentials() != null && getPasswordEncoder().upgradeEncoding(user.getPassword()))
+        {
+            String presentedPassword = authentication.getCredentials().toString();
+            try
+            {
+                rehashExecutor.execute(() -> rehash(user, presentedPassword));
+            }
+            catch (RejectedExecutionException e)
+            {
+                log.debug("Skipping password rehash for {}, the rehash queue is full", user.getUsername());
+            }
+        }
+        return super.createSuccessAuthentication(principal, authentication, user);
+    }
+
+    private void rehash(UserDetails user, String presentedPassword)
+    {
+        try
+        {
+            passwordService.updatePassword(user, getPasswordEncoder().encode(presentedPassword));
+        }
+        catch (RuntimeException e)
+        {
+            log.warn("Could not upgrade the password hash of {}: {}", user.getUsername(), e.getMessage());
+        }
+    }
+}
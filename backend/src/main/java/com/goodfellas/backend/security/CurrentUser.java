@@ -0,0 +1,37 @@
+package com.goodfellas.backend.security;
+
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.core.Authentication;
+
+/**
+ * Reads the account id straight from the principal placed in the security context by the JWT filter, so that
+ * services can filter by the indexed foreign key instead of joining on the username.
+ */
+public final class CurrentUser
+{
+    private CurrentUser() {}
+
+    public static int patientId(Authentication authentication)
+    {
+        return idWithRole(authentication, "ROLE_PATIENT");
+    }
+
+    public static int psychologistId(Authentication authentication)
+    {
+        return idWithRole(authentication, "ROLE_PSYCHOLOGIST");
+    }
+
+    public static AuthenticatedUser user(Authentication authentication)
+    {
+        if (authentication != null && authentication.getPrincipal() instanceof AuthenticatedUser user)
+            return user;
+        throw new AccessDeniedException("This endpoint requires an authenticated account");
+    }
+
+    private static int idWithRole(Authentication authentication, String role)
+    {
+        if (authentication != null && authentication.getPrincipal() instanceof AuthenticatedUser user && role.equals(user.getRole()))
+            return user.getId();
+        throw new AccessDeniedException("This endpoint requires " + role);
+    }
+}
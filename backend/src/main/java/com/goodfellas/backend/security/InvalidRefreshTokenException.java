@@ -0,0 +1,13 @@
+package com.goodfellas.backend.security;
+
+/**
+ * Thrown when a refresh token is missing, unknown, already used or expired.
+ * Callers should answer with 401 so that the client sends the user back to the login screen.
+ */
+public class InvalidRefreshTokenException extends RuntimeException
+{
+    public InvalidRefreshTokenException(String message)
+    {
+        super(message);
+    }
+}
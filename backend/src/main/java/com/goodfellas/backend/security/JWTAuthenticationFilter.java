@@ -1,12 +1,14 @@
 package com.goodfellas.backend.security;
 
 import com.goodfellas.backend.service.CustomUserDetailsService;
+import io.jsonwebtoken.Claims;
 import io.micrometer.common.lang.NonNull;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -15,6 +17,8 @@ import org.springframework.util.StringUtils;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.time.Duration;
+import java.util.Date;
 
 public class JWTAuthenticationFilter extends OncePerRequestFilter
 {
@@ -24,14 +28,38 @@ public class JWTAuthenticationFilter extends OncePerRequestFilter
     @Autowired
     private CustomUserDetailsService customUserDetailsService;
 
+    @Autowired
+    private TokenRevocationList tokenRevocationList;
+
+    /**
+     * When enabled, the principal is rebuilt from the signed role/uid claims instead of loading the account from the
+     * database. The database is only consulted once the token is older than the identity freshness window.
+     */
+    @Value("${psycare.jwt.stateless-principal:true}")
+    private boolean statelessPrincipal;
+
+    @Value("${psycare.jwt.identity-freshness:15m}")
+    private Duration identityFreshness;
+
     @Override
     protected void doFilterInternal(@NonNull HttpServletRequest request, @NonNull HttpServletResponse response, @NonNull FilterChain filterChain) throws ServletException, IOException
     {
         String token = getJWTFromRequest(request);
-        if(StringUtils.hasText(token) && tokenGenerator.validateToken(token))
+        boolean streamRequest = false;
+        if (token == null && isEventStreamRequest(request))
+        {
+            // EventSource cannot set headers, so GET /events also takes a stream token as query parameter
+            token = request.getParameter("token");
+            streamRequest = true;
+        }
+        TokenVerification verification = StringUtils.hasText(token) ? tokenGenerator.verify(token) : null;
+        if(verification != null && verification.isValid() && !isRevoked(verification.claims())
+                && streamRequest == isStreamToken(verification.claims()))
         {
-            String username = tokenGenerator.getUsernameFromJWT(token);
-            UserDetails userDetails = customUserDetailsService.loadUserByUsername(username);
+            Claims claims = verification.claims();
+            UserDetails userDetails = principalFromClaims(claims);
+            if (userDetails == null)
+                userDetails = customUserDetailsService.loadUserByUsername(claims.getSubject());
             UsernamePasswordAuthenticationToken authenticationToken = new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
             authenticationToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
             SecurityContextHolder.getContext().setAuthentication(authenticationToken);
@@ -39,7 +67,42 @@ public class JWTAuthenticationFilter extends OncePerRequestFilter
         filterChain.doFilter(request, response);
     }
 
-    private String getJWTFromRequest(HttpServletRequest request)
+    private UserDetails principalFromClaims(Claims claims)
+    {
+        if (!statelessPrincipal)
+            return null;
+
+        String role = claims.get(SecurityConstants.ROLE_CLAIM, String.class);
+        Integer userId = claims.get(SecurityConstants.USER_ID_CLAIM, Integer.class);
+        Date issuedAt = claims.getIssuedAt();
+        if (role == null || userId == null || issuedAt == null)
+            return null;
+
+        if (issuedAt.getTime() + identityFreshness.toMillis() < System.currentTimeMillis())
+            return null;
+
+        return new AuthenticatedUser(userId, claims.getSubject(), "", role);
+    }
+
+    private boolean isRevoked(Claims claims)
+    {
+        String session = claims.get(SecurityConstants.SESSION_CLAIM, String.class);
+        return (claims.getId() != null && tokenRevocationList.isRevoked(claims.getId()))
+                || (session != null && tokenRevocationList.isRevoked(session));
+    }
+
+    private static boolean isStreamToken(Claims claims)
+    {
+        return SecurityConstants.EVENTS_SCOPE.equals(claims.get(SecurityConstants.SCOPE_CLAIM, String.class));
+    }
+
+    private static boolean isEventStreamRequest(HttpServletRequest request)
+    {
+        return "GET".equals(request.getMethod())
+                && "/events".equals(request.getRequestURI().substring(request.getContextPath().length()));
+    }
+
+    public static String getJWTFromRequest(HttpServletRequest request)
     {
         String bearerToken = request.getHeader("Authorization");
         if(StringUtils.hasText(bearerToken) && bearerToken.startsWith("Bearer "))
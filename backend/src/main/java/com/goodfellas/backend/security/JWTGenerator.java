@@ -1,61 +1,127 @@
 package com.goodfellas.backend.security;
 
+import com.goodfellas.backend.cache.ExpiringCache;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtBuilder;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
-import org.springframework.security.authentication.AuthenticationCredentialsNotFoundException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Component;
 
 import javax.crypto.SecretKey;
+import java.time.Duration;
 import java.util.Date;
+import java.util.UUID;
 
 @Component
 public class JWTGenerator {
 
-    private SecretKey getSignInKey()
+    private final SecretKey signInKey;
+    private final JwtParser parser;
+    private final ExpiringCache<String, Claims> verifiedTokens;
+
+    /**
+     * SecurityConstants is injected so that the secret is initialised before the key is derived from it.
+     */
+    @Autowired
+    public JWTGenerator(SecurityConstants securityConstants,
+                        @Value("${psycare.jwt.verification-cache-size:10000}") int verificationCacheSize,
+                        @Value("${psycare.jwt.verification-cache-ttl:5m}") Duration verificationCacheTtl)
     {
-        byte[] keyBytes = Decoders.BASE64.decode(SecurityConstants.JWT_SECRET);
-        return Keys.hmacShaKeyFor(keyBytes);
+        this.signInKey = Keys.hmacShaKeyFor(Decoders.BASE64.decode(SecurityConstants.JWT_SECRET));
+        this.parser = Jwts.parser().verifyWith(signInKey).build();
+        this.verifiedTokens = new ExpiringCache<>(verificationCacheSize, verificationCacheTtl.toMillis());
     }
 
     public String generateToken(Authentication authentication)
     {
-        String username = authentication.getName();
+        if (authentication.getPrincipal() instanceof AuthenticatedUser user)
+            return generateToken(user);
+        return buildToken(authentication.getName()).compact();
+    }
+
+    public String generateToken(AuthenticatedUser user)
+    {
+        return buildToken(user.getUsername())
+                .claim(SecurityConstants.ROLE_CLAIM, user.getRole())
+                .claim(SecurityConstants.USER_ID_CLAIM, user.getId())
+                .compact();
+    }
+
+    /**
+     * A short-lived token that only opens the GET /events stream, for browser EventSource clients, which cannot send
+     * the Authorization header. It travels in the query string, so JWTAuthenticationFilter accepts it nowhere else,
+     * and it stops working once the access token it was issued for (sid) is logged out.
+     */
+    public String generateStreamToken(AuthenticatedUser user, String sessionId, Duration ttl)
+    {
+        return buildToken(user.getUsername(), ttl.toMillis())
+                .claim(SecurityConstants.ROLE_CLAIM, user.getRole())
+                .claim(SecurityConstants.USER_ID_CLAIM, user.getId())
+                .claim(SecurityConstants.SCOPE_CLAIM, SecurityConstants.EVENTS_SCOPE)
+                .claim(SecurityConstants.SESSION_CLAIM, sessionId)
+                .compact();
+    }
+
+    private JwtBuilder buildToken(String username)
+    {
+        return buildToken(username, SecurityConstants.JWT_EXPIRATION);
+    }
+
+    private JwtBuilder buildToken(String username, long expirationMillis)
+    {
         Date currentDate = new Date();
-        Date expireDate = new Date(currentDate.getTime() + SecurityConstants.JWT_EXPIRATION);
+        Date expireDate = new Date(currentDate.getTime() + expirationMillis);
 
         return Jwts.builder()
+                .id(UUID.randomUUID().toString())
                 .subject(username)
-                .issuedAt(new Date())
+                .issuedAt(currentDate)
                 .expiration(expireDate)
-                .signWith(getSignInKey(), Jwts.SIG.HS512)
-                .compact();
+                .signWith(signInKey, Jwts.SIG.HS512);
     }
 
-    public String getUsernameFromJWT(String token)
+    /**
+     * Parses and verifies the token exactly once. Successfully verified tokens are remembered (keyed by their SHA-256
+     * digest) until they expire, so repeated requests with the same token skip the HMAC check and the JSON parsing.
+     */
+    public TokenVerification verify(String token)
     {
-        Claims claims = Jwts.parser()
-                .verifyWith(getSignInKey())
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
-        return claims.getSubject();
-    }
+        if (token == null || token.isBlank())
+            return TokenVerification.invalid("Token is empty");
+
+        String key = TokenDigest.sha256(token);
+        Claims cached = verifiedTokens.get(key);
+        if (cached != null)
+            return TokenVerification.valid(cached);
 
-    public boolean validateToken(String token) {
         try
         {
-            Jwts.parser()
-                    .verifyWith(getSignInKey())
-                    .build()
-                    .parseSignedClaims(token);
-            return true;
+            Claims claims = parser.parseSignedClaims(token).getPayload();
+            if (claims.getExpiration() != null)
+                verifiedTokens.put(key, claims, claims.getExpiration().getTime());
+            return TokenVerification.valid(claims);
         }
-        catch (Exception e)
+        catch (JwtException | IllegalArgumentException e)
         {
-            return false;
+            return TokenVerification.invalid(e.getMessage());
         }
     }
-}
\ No newline at end of file
+
+    public String getUsernameFromJWT(String token)
+    {
+        TokenVerification verification = verify(token);
+        if (!verification.isValid())
+            throw new JwtException(verification.error());
+        return verification.claims().getSubject();
+    }
+
+    public boolean validateToken(String token) {
+        return verify(token).isValid();
+    }
+}
@@ -0,0 +1,239 @@
+package com.goodfellas.backend.security;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Throttles failed logins per username and per client IP before any BCrypt work is done.
+ * <p>
+ * Each key uses a sliding-window counter (the previous window's count weighted by how much of it still overlaps,
+ * plus the current window's count) packed into a single AtomicLong, so checks and updates are lock-free.
+ * Only failures create entries, so checks and successful logins of accounts without recent failures are a single
+ * map lookup that takes no lock. Keys are also kept in the order of their last failure, split over a few
+ * independently locked stripes: when a stripe is full its key that failed longest ago is evicted, so a flood of new
+ * usernames or IPs can never stop failures from being counted, and idle keys are swept on a schedule from the
+ * oldest end.
+ */
+@Component
+public class LoginRateLimiter
+{
+    private final SlidingWindowCounter usernames;
+    private final SlidingWindowCounter clientIps;
+
+    @Autowired
+    public LoginRateLimiter(@Value("${psycare.security.login-throttle.window:1m}") Duration window,
+                            @Value("${psycare.security.login-throttle.max-failures-per-user:5}") int maxFailuresPerUser,
+                            @Value("${psycare.security.login-throttle.max-failures-per-ip:50}") int maxFailuresPerIp,
+                            @Value("${psycare.security.login-throttle.max-tracked-keys:100000}") int maxTrackedKeys)
+    {
+        this(window, maxFailuresPerUser, maxFailuresPerIp, maxTrackedKeys, System::currentTimeMillis);
+    }
+
+    public LoginRateLimiter(Duration window, int maxFailuresPerUser, int maxFailuresPerIp, int maxTrackedKeys, LongSupplier clock)
+    {
+        this.usernames = new SlidingWindowCounter(window.toMillis(), maxFailuresPerUser, maxTrackedKeys, clock);
+        this.clientIps = new SlidingWindowCounter(window.toMillis(), maxFailuresPerIp, maxTrackedKeys, clock);
+    }
+
+    /**
+     * @return 0 if the attempt may proceed, otherwise the number of seconds the client should wait.
+     */
+    public long retryAfterSeconds(String username, String clientIp)
+    {
+        return Math.max(usernames.retryAfterSeconds(username), clientIps.retryAfterSeconds(clientIp));
+    }
+
+    public void recordFailure(String username, String clientIp)
+    {
+        usernames.increment(username);
+        clientIps.increment(clientIp);
+    }
+
+    public void recordSuccess(String username)
+    {
+        usernames.reset(username);
+    }
+
+    @Scheduled(fixedDelayString = "${psycare.security.login-throttle.sweep-interval:1m}")
+    public void sweep()
+    {
+        usernames.sweep();
+        clientIps.sweep();
+    }
+
+    private static final class SlidingWindowCounter
+    {
+        private static final long COUNT_MASK = 0xFFFFL;
+
+        private static final int MAX_STRIPES = 16;
+        private static final int MIN_KEYS_PER_STRIPE = 1024;
+
+        private final ConcurrentHashMap<String, AtomicLong> states = new ConcurrentHashMap<>();
+        // Keys by last failure, oldest first, per stripe; each set is also the lock of its stripe
+        private final LinkedHashSet<String>[] failureOrders;
+        private final int keysPerStripe;
+        private final long windowMillis;
+        private final int limit;
+        private final LongSupplier clock;
+
+        @SuppressWarnings("unchecked")
+        private SlidingWindowCounter(long windowMillis, int limit, int maxKeys, LongSupplier clock)
+        {
+            this.windowMillis = windowMillis;
+            this.limit = limit;
+            this.clock = clock;
+            // Small limits keep a single stripe, so eviction stays exactly least recently failed
+            int stripes = Integer.highestOneBit(Math.max(1, Math.min(MAX_STRIPES, maxKeys / MIN_KEYS_PER_STRIPE)));
+            this.failureOrders = new LinkedHashSet[stripes];
+            for (int i = 0; i < stripes; i++)
+                failureOrders[i] = new LinkedHashSet<>();
+            this.keysPerStripe = (maxKeys + stripes - 1) / stripes;
+        }
+
+        private LinkedHashSet<String> failureOrder(String key)
+        {
+            int hash = key.hashCode();
+            return failureOrders[(hash ^ (hash >>> 16)) & (failureOrders.length - 1)];
+        }
+
+        long retryAfterSeconds(String key)
+        {
+            if (key == null)
+                return 0;
+            AtomicLong state = states.get(key);
+            if (state == null)
+                return 0;
+
+            long now = clock.getAsLong();
+            long current = roll(state.get(), now / windowMillis);
+            long previousCount = previous(current);
+            long currentCount = current(current);
+            long elapsed = now % windowMillis;
+            if (previousCount * (windowMillis - elapsed) / (double) windowMillis + currentCount < limit)
+                return 0;
+
+            long waitMillis;
+            if (currentCount < limit)
+            {
+                // wait until the weighted share of the previous window has decayed enough
+                long overlapAllowed = (long) Math.floor((limit - currentCount) * (double) windowMillis / previousCount);
+                waitMillis = (windowMillis - overlapAllowed) - elapsed + 1;
+            }
+            else
+            {
+                // the current window alone is over the limit: it has to end and then decay as the previous window
+                long overlapAllowed = (long) Math.floor(limit * (double) windowMillis / currentCount);
+                waitMillis = (windowMillis - elapsed) + (windowMillis - overlapAllowed) + 1;
+            }
+            return Math.max(1, (waitMillis + 999) / 1000);
+        }
+
+        void increment(String key)
+        {
+            if (key == null)
+                return;
+            long now = clock.getAsLong();
+            AtomicLong state;
+            LinkedHashSet<String> failureOrder = failureOrder(key);
+            synchronized (failureOrder)
+            {
+                state = states.computeIfAbsent(key, k -> new AtomicLong(pack(now / windowMillis, 0, 0)));
+                failureOrder.remove(key);
+                failureOrder.add(key);
+                Iterator<String> oldest = failureOrder.iterator();
+                while (failureOrder.size() > keysPerStripe)
+                {
+                    states.remove(oldest.next());
+                    oldest.remove();
+                }
+            }
+
+            long window = now / windowMillis;
+            long observed;
+            long updated;
+            do
+            {
+                observed = state.get();
+                long rolled = roll(observed, window);
+                updated = pack(window, previous(rolled), Math.min(COUNT_MASK, current(rolled) + 1));
+            }
+            while (!state.compareAndSet(observed, updated));
+        }
+
+        void reset(String key)
+        {
+            // Accounts without recent failures, i.e. nearly every successful login, never take a lock
+            if (key == null || !states.containsKey(key))
+                return;
+            LinkedHashSet<String> failureOrder = failureOrder(key);
+            synchronized (failureOrder)
+            {
+                failureOrder.remove(key);
+                states.remove(key);
+            }
+        }
+
+        /**
+         * Drops keys without failures in the current or the previous window, stopping at the first recent one.
+         */
+        void sweep()
+        {
+            long window = clock.getAsLong() / windowMillis;
+            for (LinkedHashSet<String> failureOrder : failureOrders)
+            {
+                synchronized (failureOrder)
+                {
+                    Iterator<String> oldest = failureOrder.iterator();
+                    while (oldest.hasNext())
+                    {
+                        String key = oldest.next();
+                        AtomicLong state = states.get(key);
+                        if (state != null && windowOf(state.get()) >= window - 1)
+                            break;
+                        states.remove(key);
+                        oldest.remove();
+                    }
+                }
+            }
+        }
+
+        private static long roll(long state, long window)
+        {
+            long stateWindow = windowOf(state);
+            if (stateWindow == window)
+                return state;
+            if (stateWindow == window - 1)
+                return pack(window, current(state), 0);
+            return pack(window, 0, 0);
+        }
+
+        private static long pack(long window, long previousCount, long currentCount)
+        {
+            return (window << 32) | (previousCount << 16) | currentCount;
+        }
+
+        private static long windowOf(long state)
+        {
+            return state >>> 32;
+        }
+
+        private static long previous(long state)
+        {
+            return (state >>> 16) & COUNT_MASK;
+        }
+
+        private static long current(long state)
+        {
+            return state & COUNT_MASK;
+        }
+    }
+}
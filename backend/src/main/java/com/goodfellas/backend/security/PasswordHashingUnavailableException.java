@@ -0,0 +1,13 @@
+package com.goodfellas.backend.security;
+
+/**
+ * Thrown when a password cannot be hashed or verified because the hashing bulkhead is saturated.
+ * Callers should answer with 503 so that clients back off instead of piling up on request threads.
+ */
+public class PasswordHashingUnavailableException extends RuntimeException
+{
+    public PasswordHashingUnavailableException(String message)
+    {
+        super(message);
+    }
+}
@@ -8,6 +8,11 @@ public class SecurityConstants
 {
     public static String JWT_SECRET;
     public static long JWT_EXPIRATION;
+    public static final String ROLE_CLAIM = "role";
+    public static final String USER_ID_CLAIM = "uid";
+    public static final String SCOPE_CLAIM = "scope";
+    public static final String SESSION_CLAIM = "sid";
+    public static final String EVENTS_SCOPE = "events";
 
     @PostConstruct
     public void init()
@@ -0,0 +1,36 @@
+package com.goodfellas.backend.security;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+
+/**
+ * SHA-256 digests of bearer tokens, used wherever a token has to be looked up without keeping the token itself.
+ */
+public final class TokenDigest
+{
+    private static final ThreadLocal<MessageDigest> SHA_256 = ThreadLocal.withInitial(() -> {
+        try
+        {
+            return MessageDigest.getInstance("SHA-256");
+        }
+        catch (NoSuchAlgorithmException e)
+        {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    });
+
+    private TokenDigest()
+    {
+    }
+
+    /**
+     * @return the Base64 encoded SHA-256 digest of the token (44 characters).
+     */
+    public static String sha256(String token)
+    {
+        byte[] hash = SHA_256.get().digest(token.getBytes(StandardCharsets.US_ASCII));
+        return Base64.getEncoder().encodeToString(hash);
+    }
+}
@@ -0,0 +1,62 @@
+package com.goodfellas.backend.security;
+
+import com.goodfellas.backend.model.RevokedToken;
+import com.goodfellas.backend.repository.RevokedTokenRepository;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Ids (jti) of access tokens that were logged out before their expiry.
+ * Lookups are served from memory in constant time; the table only exists so that the list survives restarts.
+ * An entry is useless once its token has expired, so the list never holds more than the logouts of one token
+ * lifetime.
+ */
+@Component
+public class TokenRevocationList
+{
+    private final RevokedTokenRepository revokedTokenRepository;
+    private final ConcurrentHashMap<String, Long> revoked = new ConcurrentHashMap<>();
+
+    @Autowired
+    public TokenRevocationList(RevokedTokenRepository revokedTokenRepository)
+    {
+        this.revokedTokenRepository = revokedTokenRepository;
+    }
+
+    @PostConstruct
+    public void load()
+    {
+        for (RevokedToken token : revokedTokenRepository.findByExpiresAtAfter(LocalDateTime.now()))
+            revoked.put(token.getJti(), token.getExpiresAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli());
+    }
+
+    public boolean isRevoked(String jti)
+    {
+        Long expiresAt = revoked.get(jti);
+        return expiresAt != null && expiresAt > System.currentTimeMillis();
+    }
+
+    public void revoke(String jti, Date expiresAt)
+    {
+        if (jti == null || expiresAt == null || expiresAt.getTime() <= System.currentTimeMillis())
+            return;
+        revoked.put(jti, expiresAt.getTime());
+        revokedTokenRepository.save(new RevokedToken(jti, LocalDateTime.ofInstant(expiresAt.toInstant(), ZoneId.systemDefault())));
+    }
+
+    @Scheduled(fixedDelayString = "${psycare.jwt.revocation-cleanup-interval:10m}")
+    public void prune()
+    {
+        long now = System.currentTimeMillis();
+        revoked.values().removeIf(expiresAt -> expiresAt <= now);
+        revokedTokenRepository.deleteExpired(LocalDateTime.ofInstant(Instant.ofEpochMilli(now), ZoneId.systemDefault()));
+    }
+}
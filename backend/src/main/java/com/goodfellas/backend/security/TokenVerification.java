@@ -0,0 +1,24 @@
+package com.goodfellas.backend.security;
+
+import io.jsonwebtoken.Claims;
+
+/**
+ * Outcome of verifying a JWT: either the verified claims or the reason the token was rejected.
+ */
+public record TokenVerification(Claims claims, String error)
+{
+    public static TokenVerification valid(Claims claims)
+    {
+        return new TokenVerification(claims, null);
+    }
+
+    public static TokenVerification invalid(String error)
+    {
+        return new TokenVerification(null, error);
+    }
+
+    public boolean isValid()
+    {
+        return claims != null;
+    }
+}
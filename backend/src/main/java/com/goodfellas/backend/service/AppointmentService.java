@@ -2,11 +2,13 @@ package com.goodfellas.backend.service;
 
 import com.goodfellas.backend.dto.AppointmentResponseDTO;
 import com.goodfellas.backend.dto.AppointmentRequestDTO;
+import com.goodfellas.backend.event.AppointmentBookedEvent;
 import com.goodfellas.backend.model.Appointment;
 import com.goodfellas.backend.repository.AppointmentRepository;
 import com.goodfellas.backend.repository.PatientRepository;
 import com.goodfellas.backend.repository.PsychologistRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
@@ -22,11 +24,15 @@ public class AppointmentService {
 
     private final PatientRepository patientRepository;
 
+    private final ApplicationEventPublisher eventPublisher;
+
     @Autowired
-    public AppointmentService(AppointmentRepository appointmentRepository, PsychologistRepository psychologistRepository, PatientRepository patientRepository) {
+    public AppointmentService(AppointmentRepository appointmentRepository, PsychologistRepository psychologistRepository, PatientRepository patientRepository,
+                              ApplicationEventPublisher eventPublisher) {
         this.appointmentRepository = appointmentRepository;
         this.psychologistRepository = psychologistRepository;
         this.patientRepository = patientRepository;
+        this.eventPublisher = eventPublisher;
     }
 
     public List<AppointmentResponseDTO> getAppointmentsForPsychologist(final String username) {
@@ -92,6 +98,8 @@ public class AppointmentService {
         appointment.setStatus(BOOKED);
 
         appointmentRepository.save(appointment);
+        eventPublisher.publishEvent(new AppointmentBookedEvent(appointment.getId(), patient.getId(), psychologist.getId(),
+                appointment.getStartTime(), appointment.getEndTime()));
     }
 
     private void validateRequest(AppointmentRequestDTO req) {
@@ -0,0 +1,42 @@
+package com.goodfellas.backend.service;
+
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Hands out strictly increasing change versions: the current time in microseconds since the epoch (milliseconds
+ * times 1000), bumped by one when two changes fall in the same microsecond or the wall clock steps back. Being
+ * time based, versions of different instances interleave in roughly the order the changes happened.
+ */
+@Component
+public class ChangeVersionClock
+{
+    private final AtomicLong last = new AtomicLong();
+    private final LongSupplier millis;
+
+    public ChangeVersionClock()
+    {
+        this(System::currentTimeMillis);
+    }
+
+    public ChangeVersionClock(LongSupplier millis)
+    {
+        this.millis = millis;
+    }
+
+    public long next()
+    {
+        long now = millis.getAsLong() * 1000;
+        return last.updateAndGet(previous -> Math.max(previous + 1, now));
+    }
+
+    /**
+     * @return the first version handed out the given number of milliseconds ago, for comparing versions with times.
+     */
+    public long ago(long millisAgo)
+    {
+        return (millis.getAsLong() - millisAgo) * 1000;
+    }
+}
@@ -1,49 +1,96 @@
 package com.goodfellas.backend.service;
 
+import com.goodfellas.backend.cache.ExpiringCache;
+import com.goodfellas.backend.cache.ExpiringCacheMetrics;
+import com.goodfellas.backend.dto.AccountProfileDTO;
+import com.goodfellas.backend.event.AccountChangedEvent;
+import com.goodfellas.backend.model.Account;
+import com.goodfellas.backend.repository.AccountRepository;
 import com.goodfellas.backend.repository.PatientRepository;
 import com.goodfellas.backend.repository.PsychologistRepository;
+import com.goodfellas.backend.security.AuthenticatedUser;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.core.GrantedAuthority;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
-import org.springframework.security.core.userdetails.User;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
 
-import java.util.Collections;
-import java.util.List;
+import java.time.Duration;
 
 @Service
-public class CustomUserDetailsService implements UserDetailsService {
+public class CustomUserDetailsService implements UserDetailsService, UserDetailsPasswordService {
 
+    private final AccountRepository accountRepository;
     private final PsychologistRepository psychologistRepository;
     private final PatientRepository patientRepository;
+    private final ApplicationEventPublisher eventPublisher;
+
+    /**
+     * Holds the read-only account rows. A fresh UserDetails is built from them on every lookup, because Spring Security
+     * erases the credentials of the principal it returns after a successful authentication.
+     */
+    private final ExpiringCache<String, Account> accounts;
 
     @Autowired
-    public CustomUserDetailsService(PsychologistRepository psychologistRepository, PatientRepository patientRepository)
+    public CustomUserDetailsService(AccountRepository accountRepository,
+                                    PsychologistRepository psychologistRepository,
+                                    PatientRepository patientRepository,
+                                    ApplicationEventPublisher eventPublisher,
+                                    MeterRegistry meterRegistry,
+                                    @Value("${psycare.security.user-cache-size:10000}") int cacheSize,
+                                    @Value("${psycare.security.user-cache-ttl:10m}") Duration cacheTtl)
     {
+        this.accountRepository = accountRepository;
         this.psychologistRepository = psychologistRepository;
         this.patientRepository = patientRepository;
+        this.eventPublisher = eventPublisher;
+        this.accounts = new ExpiringCache<>(cacheSize, cacheTtl.toMillis());
+        ExpiringCacheMetrics.monitor(meterRegistry, accounts, "userDetails");
     }
 
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException
     {
-        var psychologist = psychologistRepository.findByUsername(username);
-        if (psychologist.isPresent())
+        Account account = accounts.get(username);
+        if (account == null)
         {
-            List<GrantedAuthority> authorities = Collections.singletonList(new SimpleGrantedAuthority("ROLE_PSYCHOLOGIST"));
-            return new User(psychologist.get().getUsername(), psychologist.get().getPassword(), authorities);
+            account = accountRepository.findFirstByUsernameOrderByRoleDesc(username)
+                    .orElseThrow(() -> new UsernameNotFoundException("User not found with username: " + username));
+            accounts.put(username, account);
         }
 
-        var patient = patientRepository.findByUsername(username);
-        if (patient.isPresent())
-        {
-            List<GrantedAuthority> authorities = Collections.singletonList(new SimpleGrantedAuthority("ROLE_PATIENT"));
-            return new User(patient.get().getUsername(), patient.get().getPassword(), authorities);
-        }
+        var profile = new AccountProfileDTO(account.getUserId(), account.getUsername(), account.getFirstName(), account.getLastName(), account.getAge());
+        return new AuthenticatedUser(account.getUserId(), account.getUsername(), account.getPassword(), account.getRole(), profile);
+    }
+
+    /**
+     * Stores a re-encoded hash, e.g. after the BCrypt work factor was raised and the user logged in again.
+     */
+    @Override
+    public UserDetails updatePassword(UserDetails user, String newPassword)
+    {
+        AuthenticatedUser account = (AuthenticatedUser) user;
+        if ("ROLE_PSYCHOLOGIST".equals(account.getRole()))
+            psychologistRepository.updatePassword(account.getId(), newPassword);
+        else
+            patientRepository.updatePassword(account.getId(), newPassword);
 
-        throw new UsernameNotFoundException("User not found with username: " + username);
+        eventPublisher.publishEvent(new AccountChangedEvent(account.getUsername()));
+        return new AuthenticatedUser(account.getId(), account.getUsername(), newPassword, account.getRole(), account.getProfile());
+    }
+
+    /**
+     * Drops the cached account once the change is committed; a login running meanwhile could otherwise reload the
+     * old row and cache it again for the full time-to-live.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onAccountChanged(AccountChangedEvent event)
+    {
+        accounts.invalidate(event.username());
     }
 }
@@ -1,16 +1,27 @@
 package com.goodfellas.backend.service;
 
 import com.goodfellas.backend.dto.JournalEntryDTO;
+import com.goodfellas.backend.dto.JournalEntrySummaryDTO;
+import com.goodfellas.backend.dto.JournalSearchResultDTO;
+import com.goodfellas.backend.dto.TagCountDTO;
+import com.goodfellas.backend.event.JournalEntryChangedEvent;
+import com.goodfellas.backend.event.JournalEntryDeletedEvent;
+import com.goodfellas.backend.event.JournalEntrySharedEvent;
 import com.goodfellas.backend.model.JournalEntry;
 import com.goodfellas.backend.model.Patient;
 import com.goodfellas.backend.repository.JournalEntryRepository;
 import com.goodfellas.backend.repository.PatientRepository;
+import com.goodfellas.backend.search.JournalSearchIndex;
+import com.goodfellas.backend.search.JournalTokenizer;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
-import java.util.List;
+import java.util.*;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
@@ -18,28 +29,63 @@ public class JournalEntryService
 {
     private final JournalEntryRepository journalRepository;
     private final PatientRepository patientRepository;
+    private final JournalSearchIndex searchIndex;
+    private final JournalTagService tagService;
+    private final ChangeVersionClock versionClock;
+    private final SharedJournalSync sharedJournalSync;
+    private final ApplicationEventPublisher eventPublisher;
+
+    private static final int DEFAULT_SEARCH_LIMIT = 20;
+    private static final int MAX_SEARCH_LIMIT = 100;
+    private static final int SNIPPET_LENGTH = 160;
 
     @Autowired
-    public JournalEntryService(JournalEntryRepository journalRepository, PatientRepository patientRepository)
+    public JournalEntryService(JournalEntryRepository journalRepository, PatientRepository patientRepository,
+                               JournalSearchIndex searchIndex, JournalTagService tagService,
+                               ChangeVersionClock versionClock, SharedJournalSync sharedJournalSync,
+                               ApplicationEventPublisher eventPublisher)
     {
         this.journalRepository = journalRepository;
         this.patientRepository = patientRepository;
+        this.searchIndex = searchIndex;
+        this.tagService = tagService;
+        this.versionClock = versionClock;
+        this.sharedJournalSync = sharedJournalSync;
+        this.eventPublisher = eventPublisher;
+    }
+
+    public List<JournalEntrySummaryDTO> getMyEntries(int patientId)
+    {
+        return journalRepository.findSummariesByPatientId(patientId);
+    }
+
+    /**
+     * Entries of the patient carrying the given tag, newest first, looked up through the tag index.
+     */
+    public List<JournalEntrySummaryDTO> getMyEntriesByTag(int patientId, String tag)
+    {
+        List<String> normalized = JournalTagService.normalize(tag);
+        if (normalized.isEmpty())
+            return List.of();
+        return journalRepository.findSummariesByPatientIdAndTag(patientId, normalized.get(0));
     }
 
-    public List<JournalEntryDTO> getMyEntries(String username)
+    public List<TagCountDTO> getMyTags(int patientId)
     {
-        return journalRepository.findByPatient_Username(username).stream().map(this::mapToDTO).collect(Collectors.toList());
+        return tagService.getTagCounts(patientId);
     }
 
-    public JournalEntryDTO getEntry(String username, int entryId)
+    public JournalEntryDTO getEntry(int patientId, int entryId)
     {
-        JournalEntry entry = getEntryIfOwner(username, entryId);
+        JournalEntry entry = journalRepository.findByIdAndPatient_Id(entryId, patientId).orElseThrow(() -> missingEntry(entryId));
         return mapToDTO(entry);
     }
 
-    public void createEntry(String username, JournalEntryDTO dto)
+    @Transactional
+    public void createEntry(int patientId, JournalEntryDTO dto)
     {
-        Patient patient = patientRepository.findByUsername(username).orElseThrow(() -> new RuntimeException("Patient not found"));
+        // The patient id comes from the verified token, so a reference is enough; the row is not read
+        Patient patient = patientRepository.getReferenceById(patientId);
 
         JournalEntry entry = new JournalEntry();
         entry.setTitle(dto.getTitle());
@@ -48,31 +94,46 @@ public class JournalEntryService
         entry.setDate(LocalDateTime.now());
         entry.setAllowPsychologist(false);
         entry.setPatient(patient);
+        entry.setChangeVersion(versionClock.next());
 
         journalRepository.save(entry);
+        tagService.replaceTags(entry);
+        eventPublisher.publishEvent(new JournalEntryChangedEvent(entry));
     }
 
-    public void updateEntry(String username, int entryId, JournalEntryDTO dto)
+    @Transactional
+    public void updateEntry(int patientId, int entryId, JournalEntryDTO dto)
     {
-        JournalEntry entry = getEntryIfOwner(username, entryId);
+        JournalEntry entry = getEntryIfOwner(patientId, entryId);
 
         entry.setTitle(dto.getTitle());
         entry.setText(dto.getText());
         entry.setTags(dto.getTags());
         entry.setDate(LocalDateTime.now());
+        entry.setChangeVersion(versionClock.next());
 
         journalRepository.save(entry);
+        tagService.replaceTags(entry);
+        eventPublisher.publishEvent(new JournalEntryChangedEvent(entry));
     }
 
-    public void deleteEntry(String username, int entryId)
+    /**
+     * Deletes without loading the entry: the tombstone and the delete itself both check ownership in their WHERE clause.
+     */
+    @Transactional
+    public void deleteEntry(int patientId, int entryId)
     {
-        JournalEntry entry = getEntryIfOwner(username, entryId);
-        journalRepository.delete(entry);
+        long tombstoneVersion = sharedJournalSync.entryDeleted(patientId, entryId);
+        if (journalRepository.deleteOwned(entryId, patientId) == 0)
+            throw missingEntry(entryId);
+        tagService.removeTags(entryId);
+        eventPublisher.publishEvent(new JournalEntryDeletedEvent(entryId, patientId, tombstoneVersion));
     }
 
-    public void shareWithPsychologist(String username, int entryId)
+    @Transactional
+    public void shareWithPsychologist(int patientId, int entryId)
     {
-        JournalEntry entry = getEntryIfOwner(username, entryId);
+        JournalEntry entry = getEntryIfOwner(patientId, entryId);
         Patient patient = entry.getPatient();
 
         if (patient.getPsychologist() == null)
@@ -81,18 +142,79 @@ public class JournalEntryService
         }
 
         entry.setAllowPsychologist(true);
+        entry.setChangeVersion(versionClock.next());
         journalRepository.save(entry);
+        eventPublisher.publishEvent(new JournalEntryChangedEvent(entry));
+        eventPublisher.publishEvent(new JournalEntrySharedEvent(entry.getId(), patient.getId(), patient.getPsychologist().getId(),
+                entry.getTitle(), entry.getDate(), entry.getChangeVersion()));
+    }
+
+    /**
+     * Ranked search over the title, tags and text of a patient's own entries, best match first.
+     */
+    public List<JournalSearchResultDTO> searchMyEntries(int patientId, String query, Integer limit)
+    {
+        return toResults(searchIndex.search(patientId, query, searchLimit(limit)), query);
     }
 
-    private JournalEntry getEntryIfOwner(String username, int entryId)
+    /**
+     * Ranked search over the entries that the psychologist's patients shared with them, best match first.
+     */
+    public List<JournalSearchResultDTO> searchSharedEntries(int psychologistId, String query, Integer limit)
     {
-        JournalEntry entry = journalRepository.findById(entryId).orElseThrow(() -> new RuntimeException("Journal entry not found"));
+        return toResults(searchIndex.searchShared(psychologistId, query, searchLimit(limit)), query);
+    }
 
-        if (!entry.getPatient().getUsername().equals(username))
+    private static int searchLimit(Integer limit)
+    {
+        return limit == null ? DEFAULT_SEARCH_LIMIT : Math.min(Math.max(limit, 1), MAX_SEARCH_LIMIT);
+    }
+
+    private List<JournalSearchResultDTO> toResults(List<JournalSearchIndex.Hit> hits, String query)
+    {
+        if (hits.isEmpty())
+            return List.of();
+
+        Map<Integer, JournalEntry> entries = journalRepository.findAllById(hits.stream().map(JournalSearchIndex.Hit::entryId).toList())
+                .stream().collect(Collectors.toMap(JournalEntry::getId, Function.identity()));
+        Set<String> terms = new HashSet<>(JournalTokenizer.terms(query));
+
+        List<JournalSearchResultDTO> results = new ArrayList<>(hits.size());
+        for (JournalSearchIndex.Hit hit : hits)
         {
-            throw new AccessDeniedException("You do not have permission to modify this entry");
+            JournalEntry entry = entries.get(hit.entryId());
+            if (entry == null)
+                continue;
+            JournalSearchResultDTO dto = new JournalSearchResultDTO();
+            dto.setId(entry.getId());
+            dto.setTitle(entry.getTitle());
+            dto.setSnippet(JournalTokenizer.snippet(entry.getText(), terms, SNIPPET_LENGTH));
+            dto.setTags(entry.getTags());
+            dto.setDate(entry.getDate());
+            dto.setAllowPsychologist(entry.isAllowPsychologist());
+            dto.setPatientId(hit.patientId());
+            dto.setScore(hit.score());
+            results.add(dto);
         }
-        return entry;
+        return results;
+    }
+
+    /**
+     * Loads an entry of the patient together with the patient and their psychologist in one query.
+     */
+    private JournalEntry getEntryIfOwner(int patientId, int entryId)
+    {
+        return journalRepository.findOwnedWithPatient(entryId, patientId).orElseThrow(() -> missingEntry(entryId));
+    }
+
+    /**
+     * Only runs when an ownership-checked query found nothing, to tell a foreign entry from a missing one.
+     */
+    private RuntimeException missingEntry(int entryId)
+    {
+        if (journalRepository.existsById(entryId))
+            return new AccessDeniedException("You do not have permission to modify this entry");
+        return new RuntimeException("Journal entry not found");
     }
 
     private JournalEntryDTO mapToDTO(JournalEntry entry)
@@ -0,0 +1,106 @@
+package com.goodfellas.backend.service;
+
+import com.goodfellas.backend.dto.TagCountDTO;
+import com.goodfellas.backend.model.JournalEntry;
+import com.goodfellas.backend.model.JournalEntryTag;
+import com.goodfellas.backend.repository.JournalEntryRepository;
+import com.goodfellas.backend.repository.JournalEntryTagRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.*;
+import java.util.regex.Pattern;
+
+/**
+ * Keeps journal_entry_tag in step with the comma separated JournalEntry.tags of each entry.
+ */
+@Service
+public class JournalTagService
+{
+    private static final Logger log = LoggerFactory.getLogger(JournalTagService.class);
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private final JournalEntryTagRepository tagRepository;
+    private final JournalEntryRepository journalRepository;
+
+    @Autowired
+    public JournalTagService(JournalEntryTagRepository tagRepository, JournalEntryRepository journalRepository)
+    {
+        this.tagRepository = tagRepository;
+        this.journalRepository = journalRepository;
+    }
+
+    /**
+     * Splits a tags string on commas into distinct tags, lower-cased, trimmed, without a leading '#' and with inner
+     * whitespace collapsed, so that "Work, #work , WORK" is the single tag "work".
+     */
+    public static List<String> normalize(String tags)
+    {
+        if (tags == null)
+            return List.of();
+        Set<String> normalized = new LinkedHashSet<>();
+        for (String tag : tags.split(","))
+        {
+            String cleaned = WHITESPACE.matcher(tag.strip()).replaceAll(" ").toLowerCase(Locale.ROOT);
+            while (cleaned.startsWith("#"))
+                cleaned = cleaned.substring(1).strip();
+            if (cleaned.length() > JournalEntryTag.MAX_LENGTH)
+                cleaned = cleaned.substring(0, JournalEntryTag.MAX_LENGTH).strip();
+            if (!cleaned.isEmpty())
+                normalized.add(cleaned);
+        }
+        return new ArrayList<>(normalized);
+    }
+
+    /**
+     * Brings the tag rows of an entry in line with its current tags, touching only the tags that changed.
+     */
+    @Transactional
+    public void replaceTags(JournalEntry entry)
+    {
+        Set<String> wanted = new LinkedHashSet<>(normalize(entry.getTags()));
+        List<JournalEntryTag> obsolete = new ArrayList<>();
+        for (JournalEntryTag existing : tagRepository.findByEntryId(entry.getId()))
+        {
+            if (!wanted.remove(existing.getTag()))
+                obsolete.add(existing);
+        }
+        if (!obsolete.isEmpty())
+            tagRepository.deleteAll(obsolete);
+
+        int patientId = entry.getPatient().getId();
+        if (!wanted.isEmpty())
+            tagRepository.saveAll(wanted.stream().map(tag -> new JournalEntryTag(entry.getId(), patientId, tag)).toList());
+    }
+
+    @Transactional
+    public void removeTags(int entryId)
+    {
+        tagRepository.deleteByEntryId(entryId);
+    }
+
+    public List<TagCountDTO> getTagCounts(int patientId)
+    {
+        return tagRepository.countByTag(patientId);
+    }
+
+    /**
+     * Indexes the tags of entries written before journal_entry_tag existed. Once every entry is indexed this is a
+     * single query that returns nothing.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void indexUntaggedEntries()
+    {
+        List<JournalEntry> entries = journalRepository.findWithUnindexedTags();
+        for (JournalEntry entry : entries)
+            replaceTags(entry);
+        if (!entries.isEmpty())
+            log.info("Indexed the tags of {} journal entries", entries.size());
+    }
+}
@@ -0,0 +1,30 @@
+package com.goodfellas.backend.service;
+
+import com.goodfellas.backend.dto.MoodAlertDTO;
+import com.goodfellas.backend.repository.MoodAlertRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+@Service
+public class MoodAlertService {
+    private static final int MAX_ALERTS = 200;
+
+    private final MoodAlertRepository moodAlertRepository;
+
+    @Autowired
+    public MoodAlertService(MoodAlertRepository moodAlertRepository) {
+        this.moodAlertRepository = moodAlertRepository;
+    }
+
+    public List<MoodAlertDTO> getAlerts(int psychologistId, boolean includeAcknowledged) {
+        return moodAlertRepository.findForPsychologist(psychologistId, includeAcknowledged, Limit.of(MAX_ALERTS));
+    }
+
+    public void acknowledge(int psychologistId, int alertId) {
+        if (moodAlertRepository.acknowledge(alertId, psychologistId) == 0)
+            throw new RuntimeException("Alert not found");
+    }
+}
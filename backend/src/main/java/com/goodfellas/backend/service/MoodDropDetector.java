@@ -0,0 +1,204 @@
+package com.goodfellas.backend.service;
+
+import com.goodfellas.backend.event.MoodSubmittedEvent;
+import com.goodfellas.backend.model.MoodAlert;
+import com.goodfellas.backend.model.MoodAlertType;
+import com.goodfellas.backend.model.MoodDetectorState;
+import com.goodfellas.backend.repository.MoodAlertRepository;
+import com.goodfellas.backend.repository.MoodDetectorStateRepository;
+import com.goodfellas.backend.repository.PatientRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Watches every submitted mood for deterioration, in constant time per submission.
+ * Each patient has a slowly moving baseline (exponentially weighted average) and a one-sided CUSUM of how far the
+ * moods fall below it. A single entry far below the baseline is a sharp drop; a run of entries each a bit below
+ * it accumulates into a sustained drop. Either one queues an alert for the patient's psychologist.
+ * The state lives in memory and is checkpointed to mood_detector_state periodically and on shutdown.
+ */
+@Service
+public class MoodDropDetector
+{
+    private static final Logger log = LoggerFactory.getLogger(MoodDropDetector.class);
+
+    private final MoodDetectorStateRepository stateRepository;
+    private final MoodAlertRepository moodAlertRepository;
+    private final PatientRepository patientRepository;
+    private final double baselineAlpha;
+    private final double sharpDrop;
+    private final double cusumSlack;
+    private final double cusumThreshold;
+    private final int warmup;
+
+    private final ConcurrentHashMap<Integer, State> states = new ConcurrentHashMap<>();
+    private final Object checkpointLock = new Object();
+    private volatile boolean stopped;
+
+    private static final class State
+    {
+        double baseline;
+        double cusum;
+        int observations;
+        boolean dirty;
+    }
+
+    @Autowired
+    public MoodDropDetector(MoodDetectorStateRepository stateRepository,
+                            MoodAlertRepository moodAlertRepository,
+                            PatientRepository patientRepository,
+                            @Value("${psycare.mood.alerts.baseline-alpha:0.1}") double baselineAlpha,
+                            @Value("${psycare.mood.alerts.sharp-drop:3}") double sharpDrop,
+                            @Value("${psycare.mood.alerts.cusum-slack:0.5}") double cusumSlack,
+                            @Value("${psycare.mood.alerts.cusum-threshold:4}") double cusumThreshold,
+                            @Value("${psycare.mood.alerts.warmup:5}") int warmup)
+    {
+        this.stateRepository = stateRepository;
+        this.moodAlertRepository = moodAlertRepository;
+        this.patientRepository = patientRepository;
+        this.baselineAlpha = baselineAlpha;
+        this.sharpDrop = sharpDrop;
+        this.cusumSlack = cusumSlack;
+        this.cusumThreshold = cusumThreshold;
+        this.warmup = warmup;
+    }
+
+    /**
+     * Runs once the mood is committed, so a rolled back submission never moves the baseline. The alert is written
+     * in its own transaction.
+     */
+    @TransactionalEventListener
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void onMoodSubmitted(MoodSubmittedEvent event)
+    {
+        // Restored outside the map so the repository read does not hold a ConcurrentHashMap bin lock; if two
+        // submissions race, the state that was put first wins and the other restore is discarded
+        State state = states.get(event.patientId());
+        if (state == null)
+        {
+            State restored = restore(event.patientId());
+            state = states.putIfAbsent(event.patientId(), restored);
+            if (state == null)
+                state = restored;
+        }
+        double baseline;
+        MoodAlertType alert;
+        synchronized (state)
+        {
+            baseline = state.baseline;
+            alert = observe(state, event.value());
+        }
+        if (alert == null)
+            return;
+
+        MoodAlert moodAlert = new MoodAlert();
+        moodAlert.setPatient(patientRepository.getReferenceById(event.patientId()));
+        moodAlert.setType(alert);
+        moodAlert.setMoodDate(event.date());
+        moodAlert.setMoodValue(event.value());
+        moodAlert.setBaseline(baseline);
+        moodAlert.setCreatedAt(LocalDateTime.now());
+        moodAlertRepository.save(moodAlert);
+    }
+
+    private MoodAlertType observe(State state, int value)
+    {
+        state.dirty = true;
+        if (state.observations++ == 0)
+        {
+            state.baseline = value;
+            return null;
+        }
+
+        double shortfall = state.baseline - value;
+        state.cusum = Math.max(0, state.cusum + shortfall - cusumSlack);
+        state.baseline += baselineAlpha * (value - state.baseline);
+        if (state.observations <= warmup)
+            return null;
+
+        MoodAlertType alert = null;
+        if (shortfall >= sharpDrop)
+            alert = MoodAlertType.SHARP_DROP;
+        else if (state.cusum >= cusumThreshold)
+            alert = MoodAlertType.SUSTAINED_DROP;
+        if (alert != null)
+            state.cusum = 0;
+        return alert;
+    }
+
+    private State restore(int patientId)
+    {
+        State state = new State();
+        stateRepository.findById(patientId).ifPresent(saved -> {
+            state.baseline = saved.getBaseline();
+            state.cusum = saved.getCusum();
+            state.observations = saved.getObservations();
+        });
+        return state;
+    }
+
+    @Scheduled(fixedDelayString = "${psycare.mood.alerts.checkpoint-interval:1m}")
+    public void checkpoint()
+    {
+        if (!stopped)
+            saveChanges();
+    }
+
+    /**
+     * Stops the periodic checkpoints, then saves the last changes. A checkpoint still running is waited for, so the
+     * states it failed to save are retried here instead of being lost.
+     */
+    @PreDestroy
+    public void shutdown()
+    {
+        stopped = true;
+        saveChanges();
+    }
+
+    private void saveChanges()
+    {
+        synchronized (checkpointLock)
+        {
+            List<MoodDetectorState> changed = new ArrayList<>();
+            states.forEach((patientId, state) -> {
+                synchronized (state)
+                {
+                    if (state.dirty)
+                    {
+                        changed.add(new MoodDetectorState(patientId, state.baseline, state.cusum, state.observations));
+                        state.dirty = false;
+                    }
+                }
+            });
+            if (changed.isEmpty())
+                return;
+
+            try
+            {
+                stateRepository.saveAll(changed);
+            }
+            catch (RuntimeException e)
+            {
+                log.warn("Could not checkpoint the mood detector state of {} patients: {}", changed.size(), e.getMessage());
+                changed.forEach(saved -> {
+                    State state = states.get(saved.getPatientId());
+                    if (state != null)
+                        synchronized (state) { state.dirty = true; }
+                });
+            }
+        }
+    }
+}
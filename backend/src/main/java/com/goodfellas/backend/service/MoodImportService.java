@@ -0,0 +1,141 @@
+package com.goodfellas.backend.service;
+
+import com.goodfellas.backend.dto.MoodImportResultDTO;
+import com.goodfellas.backend.dto.MoodImportResultDTO.Row;
+import com.goodfellas.backend.dto.MoodImportResultDTO.Status;
+import com.goodfellas.backend.dto.MoodImportRowDTO;
+import com.goodfellas.backend.event.MoodsImportedEvent;
+import com.goodfellas.backend.repository.MoodJdbcRepository;
+import com.goodfellas.backend.repository.PatientRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Backfills mood history, e.g. when a clinic migrates from paper records. Rows are validated in memory, written with
+ * batched inserts that skip days the patient already has, and the mood statistics are rebuilt once at the end.
+ * Imported days are history, so they do not feed the mood drop detector.
+ */
+@Service
+public class MoodImportService
+{
+    private final MoodJdbcRepository moodJdbcRepository;
+    private final PatientRepository patientRepository;
+    private final MoodStatsService moodStatsService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final int maxRows;
+
+    @Autowired
+    public MoodImportService(MoodJdbcRepository moodJdbcRepository,
+                             PatientRepository patientRepository,
+                             MoodStatsService moodStatsService,
+                             ApplicationEventPublisher eventPublisher,
+                             @Value("${psycare.mood.import.max-rows:50000}") int maxRows)
+    {
+        this.moodJdbcRepository = moodJdbcRepository;
+        this.patientRepository = patientRepository;
+        this.moodStatsService = moodStatsService;
+        this.eventPublisher = eventPublisher;
+        this.maxRows = maxRows;
+    }
+
+    /**
+     * Import on behalf of a patient assigned to the given psychologist.
+     */
+    @Transactional
+    public MoodImportResultDTO importForAssignedPatient(int psychologistId, int patientId, List<MoodImportRowDTO> rows)
+    {
+        if (!patientRepository.existsByIdAndPsychologistId(patientId, psychologistId))
+            throw new AccessDeniedException("Patient is not assigned to you");
+        return importMoods(patientId, rows);
+    }
+
+    @Transactional
+    public MoodImportResultDTO importMoods(int patientId, List<MoodImportRowDTO> rows)
+    {
+        if (rows == null || rows.isEmpty())
+            throw new RuntimeException("Error: No moods to import.");
+        if (rows.size() > maxRows)
+            throw new RuntimeException("Error: At most " + maxRows + " moods can be imported at once.");
+
+        MoodImportResultDTO result = new MoodImportResultDTO();
+        LocalDate today = LocalDate.now();
+        int[] epochDays = new int[rows.size()];
+        byte[] values = new byte[rows.size()];
+        int[] rowIndex = new int[rows.size()];
+        int accepted = 0;
+        BitSet seenDays = new BitSet();
+        long firstDay = LocalDate.EPOCH.toEpochDay();
+
+        for (int i = 0; i < rows.size(); i++)
+        {
+            MoodImportRowDTO row = rows.get(i);
+            LocalDate date = row == null ? null : row.getDate();
+            Integer value = row == null ? null : row.getValue();
+            result.getRows().add(new Row(i, date, Status.IMPORTED, null));
+
+            String error = null;
+            if (date == null || value == null)
+                error = "Both 'date' and 'value' are required.";
+            else if (value < 1 || value > 10)
+                error = "Mood value must be between 1 and 10.";
+            else if (date.isAfter(today))
+                error = "Date is in the future.";
+            else if (date.toEpochDay() < firstDay)
+                error = "Date is before 1970-01-01.";
+            if (error != null)
+            {
+                reject(result, i, Status.INVALID, error);
+                continue;
+            }
+
+            int day = (int) date.toEpochDay();
+            if (seenDays.get(day))
+            {
+                reject(result, i, Status.DUPLICATE, "Date appears more than once in the import.");
+                continue;
+            }
+            seenDays.set(day);
+            epochDays[accepted] = day;
+            values[accepted] = value.byteValue();
+            rowIndex[accepted] = i;
+            accepted++;
+        }
+
+        if (accepted > 0)
+        {
+            int[] inserted = moodJdbcRepository.insertIgnoringDuplicates(patientId, epochDays, values, accepted);
+            for (int i = 0; i < accepted; i++)
+            {
+                if (inserted[i] == 0)
+                    reject(result, rowIndex[i], Status.DUPLICATE, "A mood already exists for this date.");
+                else
+                    result.setImported(result.getImported() + 1);
+            }
+            if (result.getImported() > 0)
+            {
+                moodStatsService.rebuild(patientId);
+                eventPublisher.publishEvent(new MoodsImportedEvent(patientId, seenDays.get((int) today.toEpochDay())));
+            }
+        }
+        return result;
+    }
+
+    private static void reject(MoodImportResultDTO result, int index, Status status, String message)
+    {
+        Row row = result.getRows().get(index);
+        row.setStatus(status);
+        row.setMessage(message);
+        if (status == Status.DUPLICATE)
+            result.setDuplicates(result.getDuplicates() + 1);
+        else
+            result.setInvalid(result.getInvalid() + 1);
+    }
+}
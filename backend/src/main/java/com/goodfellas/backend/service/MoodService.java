@@ -1,12 +1,19 @@
 package com.goodfellas.backend.service;
 
+import com.goodfellas.backend.dto.CursorPageDTO;
+import com.goodfellas.backend.dto.KeysetCursor;
+import com.goodfellas.backend.dto.MoodCalendarDTO;
 import com.goodfellas.backend.dto.MoodDTO;
+import com.goodfellas.backend.event.MoodSubmittedEvent;
 import com.goodfellas.backend.model.Mood;
-import com.goodfellas.backend.model.Patient;
+import com.goodfellas.backend.model.MoodSeries;
+import com.goodfellas.backend.repository.MoodJdbcRepository;
 import com.goodfellas.backend.repository.MoodRepository;
-import com.goodfellas.backend.repository.PatientRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
 import java.util.List;
@@ -17,16 +24,32 @@ import java.util.stream.Collectors;
 public class MoodService
 {
     private final MoodRepository moodRepository;
-    private final PatientRepository patientRepository;
+    private final MoodStatsService moodStatsService;
+    private final MoodJdbcRepository moodJdbcRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TodayMoodCache todayMoodCache;
+
+    private static final int DEFAULT_PAGE_SIZE = 30;
+    private static final int MAX_PAGE_SIZE = 100;
 
     @Autowired
-    public MoodService(MoodRepository moodRepository, PatientRepository patientRepository)
+    public MoodService(MoodRepository moodRepository, MoodStatsService moodStatsService, MoodJdbcRepository moodJdbcRepository,
+                       ApplicationEventPublisher eventPublisher, TodayMoodCache todayMoodCache)
     {
         this.moodRepository = moodRepository;
-        this.patientRepository = patientRepository;
+        this.moodJdbcRepository = moodJdbcRepository;
+        this.eventPublisher = eventPublisher;
+        this.todayMoodCache = todayMoodCache;
+        this.moodStatsService = moodStatsService;
     }
 
-    public void submitMood(String username, int value)
+    /**
+     * Records today's mood. The unique (patient_id, date) constraint decides whether the patient already submitted
+     * one today, so concurrent submissions cannot both succeed and the common case is a single insert. Patients
+     * known to have submitted already are turned away from the cache without a query.
+     */
+    @Transactional
+    public void submitMood(int patientId, int value)
     {
         if (value < 1 || value > 10)
         {
@@ -34,23 +57,101 @@ public class MoodService
         }
 
         LocalDate today = LocalDate.now();
-        if (moodRepository.findByPatient_UsernameAndDate(username, today).isPresent())
+        Optional<MoodDTO> cached = todayMoodCache.get(patientId);
+        if (cached != null && cached.isPresent())
+        {
+            throw alreadySubmitted(today);
+        }
+
+        int moodId = moodJdbcRepository.insertIfAbsent(patientId, today, value);
+        if (moodId == 0)
+        {
+            throw alreadySubmitted(today);
+        }
+
+        moodStatsService.record(patientId, today, value);
+        eventPublisher.publishEvent(new MoodSubmittedEvent(moodId, patientId, today, value));
+    }
+
+    private static RuntimeException alreadySubmitted(LocalDate today)
+    {
+        return new RuntimeException("Error: You have already submitted your mood for today (" + today + ").");
+    }
+
+    /**
+     * Returns at most limit moods between from and to (both inclusive, both optional), newest first.
+     * One extra row is fetched to know whether another page exists, so no count query is needed.
+     */
+    public CursorPageDTO<MoodDTO> getMoodHistory(int patientId, LocalDate from, LocalDate to, Integer limit, String cursor)
+    {
+        int pageSize = limit == null ? DEFAULT_PAGE_SIZE : Math.min(Math.max(limit, 1), MAX_PAGE_SIZE);
+        if (from == null)
+            from = LocalDate.EPOCH;
+        if (to == null)
+            to = LocalDate.now();
+        if (from.isAfter(to))
+            throw new RuntimeException("Error: 'from' must not be after 'to'.");
+
+        KeysetCursor position = new KeysetCursor(to, Integer.MAX_VALUE);
+        if (cursor != null && !cursor.isBlank())
         {
-            throw new RuntimeException("Error: You have already submitted your mood for today (" + today + ").");
+            KeysetCursor after = KeysetCursor.decode(cursor);
+            if (!after.date().isAfter(to))
+                position = after;
         }
 
-        Patient patient = patientRepository.findByUsername(username).orElseThrow(() -> new RuntimeException("Patient not found"));
-        Mood mood = new Mood();
-        mood.setValue(value);
-        mood.setDate(today);
-        mood.setPatient(patient);
+        List<Mood> rows = moodRepository.findPage(patientId, from, position.date(), position.id(), Limit.of(pageSize + 1));
+        boolean hasMore = rows.size() > pageSize;
+        if (hasMore)
+            rows = rows.subList(0, pageSize);
 
-        moodRepository.save(mood);
+        List<MoodDTO> items = rows.stream().map(this::mapToDTO).collect(Collectors.toList());
+        String nextCursor = null;
+        if (hasMore)
+        {
+            Mood last = rows.get(rows.size() - 1);
+            nextCursor = new KeysetCursor(last.getDate(), last.getId()).encode();
+        }
+        return new CursorPageDTO<>(items, nextCursor, hasMore);
     }
 
-    public List<MoodDTO> getMyMoodHistory(String username)
+    /**
+     * Mood history between from and to (both optional) as CSV, oldest first, read without creating entities.
+     */
+    public String exportCsv(int patientId, LocalDate from, LocalDate to)
     {
-        return moodRepository.findByPatient_Username(username).stream().map(this::mapToDTO).collect(Collectors.toList());
+        MoodSeries series = (from == null && to == null)
+                ? moodJdbcRepository.findSeries(patientId)
+                : moodJdbcRepository.findSeries(patientId, from == null ? LocalDate.EPOCH : from, to == null ? LocalDate.now() : to);
+
+        StringBuilder csv = new StringBuilder(16 + series.size() * 14).append("date,value\n");
+        for (int i = 0; i < series.size(); i++)
+            csv.append(series.date(i)).append(',').append(series.value(i)).append('\n');
+        return csv.toString();
+    }
+
+    /**
+     * One year of moods packed into a byte per day plus a presence bitmap, for the heatmap view.
+     */
+    public MoodCalendarDTO getCalendar(int patientId, int year)
+    {
+        if (year < 1970 || year > LocalDate.now().getYear())
+            throw new RuntimeException("Error: Invalid year.");
+
+        LocalDate firstDay = LocalDate.ofYearDay(year, 1);
+        int days = firstDay.lengthOfYear();
+        MoodSeries series = moodJdbcRepository.findSeries(patientId, firstDay, firstDay.plusDays(days - 1));
+
+        byte[] values = new byte[days];
+        byte[] present = new byte[(days + 7) / 8];
+        long firstEpochDay = firstDay.toEpochDay();
+        for (int i = 0; i < series.size(); i++)
+        {
+            int dayOfYear = (int) (series.epochDay(i) - firstEpochDay);
+            values[dayOfYear] = (byte) series.value(i);
+            present[dayOfYear >> 3] |= (byte) (1 << (dayOfYear & 7));
+        }
+        return new MoodCalendarDTO(year, days, series.size(), values, present);
     }
 
     private MoodDTO mapToDTO(Mood mood)
@@ -62,11 +163,16 @@ public class MoodService
         return dto;
     }
 
-    public Optional<MoodDTO> getTodayMood(String username)
+    public Optional<MoodDTO> getTodayMood(int patientId)
     {
-        return moodRepository
-                .findByPatient_UsernameAndDate(username, LocalDate.now())
-                .map(this::mapToDTO);
+        Optional<MoodDTO> cached = todayMoodCache.get(patientId);
+        if (cached != null)
+            return cached;
+
+        LocalDate today = LocalDate.now();
+        Optional<MoodDTO> mood = moodRepository.findByPatient_IdAndDate(patientId, today).map(this::mapToDTO);
+        todayMoodCache.put(patientId, today, mood.orElse(null));
+        return mood;
     }
 
 }
\ No newline at end of file
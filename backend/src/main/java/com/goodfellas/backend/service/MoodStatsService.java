@@ -0,0 +1,204 @@
+package com.goodfellas.backend.service;
+
+import com.goodfellas.backend.dto.MoodStatsDTO;
+import com.goodfellas.backend.model.MoodSeries;
+import com.goodfellas.backend.model.MoodStats;
+import com.goodfellas.backend.repository.MoodJdbcRepository;
+import com.goodfellas.backend.repository.MoodStatsRepository;
+import com.goodfellas.backend.repository.PatientRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.Optional;
+
+import static com.goodfellas.backend.model.MoodStats.RECENT_DAYS;
+
+@Service
+public class MoodStatsService
+{
+    private static final Logger log = LoggerFactory.getLogger(MoodStatsService.class);
+
+    private final MoodStatsRepository moodStatsRepository;
+    private final MoodJdbcRepository moodJdbcRepository;
+    private final PatientRepository patientRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    @Autowired
+    public MoodStatsService(MoodStatsRepository moodStatsRepository, MoodJdbcRepository moodJdbcRepository,
+                            PatientRepository patientRepository, TransactionTemplate transactionTemplate)
+    {
+        this.moodStatsRepository = moodStatsRepository;
+        this.moodJdbcRepository = moodJdbcRepository;
+        this.patientRepository = patientRepository;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    /**
+     * Adds a newly inserted mood to the aggregates of its patient. Must run in the transaction that inserted the
+     * mood: patients without aggregates yet are built from their rows, which already include the new one.
+     */
+    @Transactional
+    public void record(int patientId, LocalDate date, int value)
+    {
+        Optional<MoodStats> stored = moodStatsRepository.findById(patientId);
+        if (stored.isEmpty())
+        {
+            moodStatsRepository.save(compute(patientId));
+            return;
+        }
+        MoodStats stats = stored.get();
+        apply(stats, date, value);
+        moodStatsRepository.save(stats);
+    }
+
+    /**
+     * Patients without aggregates yet get them computed from their rows but not stored; record, the import and the
+     * nightly rebuild are the only writers.
+     */
+    @Transactional(readOnly = true)
+    public MoodStatsDTO getStats(int patientId)
+    {
+        MoodStats stats = moodStatsRepository.findById(patientId).orElseGet(() -> compute(patientId));
+        return toDTO(stats, LocalDate.now());
+    }
+
+    /**
+     * Recomputes the aggregates of a patient from the mood table and stores them.
+     * @return true if the stored aggregates differed from the recomputed ones.
+     */
+    @Transactional
+    public boolean rebuild(int patientId)
+    {
+        MoodStats fresh = compute(patientId);
+        Optional<MoodStats> existing = moodStatsRepository.findById(patientId);
+        if (existing.isPresent() && existing.get().equals(fresh))
+            return false;
+
+        existing.ifPresent(stats -> fresh.setVersion(stats.getVersion()));
+        moodStatsRepository.save(fresh);
+        return existing.isPresent();
+    }
+
+    /**
+     * Nightly verification of the incrementally maintained aggregates. Any drift is repaired and logged.
+     * Every patient is rebuilt in a transaction of its own (a self-call would bypass the @Transactional proxy of
+     * rebuild), so a conflict with a concurrent submission or bad data only skips that patient.
+     */
+    @Scheduled(cron = "${psycare.mood.stats-rebuild-cron:0 30 3 * * *}")
+    public void rebuildAll()
+    {
+        int repaired = 0;
+        int failed = 0;
+        for (int patientId : patientRepository.findAllIds())
+        {
+            try
+            {
+                if (Boolean.TRUE.equals(transactionTemplate.execute(status -> rebuild(patientId))))
+                    repaired++;
+            }
+            catch (RuntimeException e)
+            {
+                failed++;
+                log.warn("Could not rebuild the mood statistics of patient {}", patientId, e);
+            }
+        }
+        if (repaired > 0)
+            log.warn("Mood statistics of {} patients were out of date and have been rebuilt", repaired);
+        if (failed > 0)
+            log.warn("Mood statistics of {} patients could not be rebuilt and are retried next night", failed);
+    }
+
+    private MoodStats compute(int patientId)
+    {
+        MoodStats stats = new MoodStats(patientId);
+        MoodSeries series = moodJdbcRepository.findSeries(patientId);
+        for (int i = 0; i < series.size(); i++)
+            apply(stats, series.date(i), series.value(i));
+        return stats;
+    }
+
+    static void apply(MoodStats stats, LocalDate date, int value)
+    {
+        byte[] recent = stats.getRecentValues();
+        LocalDate lastDate = stats.getLastDate();
+
+        if (lastDate == null || date.isAfter(lastDate))
+        {
+            long gap = lastDate == null ? RECENT_DAYS + 1 : ChronoUnit.DAYS.between(lastDate, date);
+            for (int i = 1; i < gap && i <= RECENT_DAYS; i++)
+                recent[slot(date.minusDays(i))] = 0;
+
+            stats.setCurrentStreak(gap == 1 ? stats.getCurrentStreak() + 1 : 1);
+            stats.setLongestStreak(Math.max(stats.getLongestStreak(), stats.getCurrentStreak()));
+            stats.setLastDate(date);
+            recent[slot(date)] = (byte) value;
+        }
+        else if (ChronoUnit.DAYS.between(date, lastDate) < RECENT_DAYS)
+        {
+            // Late entries for older days only fill their slot; the streaks are corrected by the next rebuild
+            recent[slot(date)] = (byte) value;
+        }
+
+        stats.setMinValue(stats.getCount() == 0 ? value : Math.min(stats.getMinValue(), value));
+        stats.setMaxValue(stats.getCount() == 0 ? value : Math.max(stats.getMaxValue(), value));
+        stats.setCount(stats.getCount() + 1);
+        stats.setTotal(stats.getTotal() + value);
+    }
+
+    static MoodStatsDTO toDTO(MoodStats stats, LocalDate today)
+    {
+        MoodStatsDTO dto = new MoodStatsDTO();
+        dto.setCount(stats.getCount());
+        if (stats.getCount() > 0)
+        {
+            dto.setAverage((double) stats.getTotal() / stats.getCount());
+            dto.setMin(stats.getMinValue());
+            dto.setMax(stats.getMaxValue());
+        }
+        dto.setLastDate(stats.getLastDate());
+        boolean streakAlive = stats.getLastDate() != null && !stats.getLastDate().isBefore(today.minusDays(1));
+        dto.setCurrentStreak(streakAlive ? stats.getCurrentStreak() : 0);
+        dto.setLongestStreak(stats.getLongestStreak());
+        dto.setLast7Days(window(stats, today, 7));
+        dto.setLast30Days(window(stats, today, 30));
+        dto.setLast90Days(window(stats, today, RECENT_DAYS));
+        return dto;
+    }
+
+    private static MoodStatsDTO.Window window(MoodStats stats, LocalDate today, int days)
+    {
+        int count = 0, sum = 0, min = Integer.MAX_VALUE, max = Integer.MIN_VALUE;
+        LocalDate lastDate = stats.getLastDate();
+        if (lastDate != null)
+        {
+            for (int i = 0; i < days; i++)
+            {
+                LocalDate day = today.minusDays(i);
+                if (day.isAfter(lastDate) || ChronoUnit.DAYS.between(day, lastDate) >= RECENT_DAYS)
+                    continue;
+                int value = stats.getRecentValues()[slot(day)];
+                if (value == 0)
+                    continue;
+                count++;
+                sum += value;
+                min = Math.min(min, value);
+                max = Math.max(max, value);
+            }
+        }
+        if (count == 0)
+            return new MoodStatsDTO.Window(days, 0, null, null, null);
+        return new MoodStatsDTO.Window(days, count, (double) sum / count, min, max);
+    }
+
+    private static int slot(LocalDate date)
+    {
+        return (int) Math.floorMod(date.toEpochDay(), (long) RECENT_DAYS);
+    }
+}
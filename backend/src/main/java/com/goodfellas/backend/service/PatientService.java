@@ -1,12 +1,24 @@
 package com.goodfellas.backend.service;
 
+import com.goodfellas.backend.cache.ExpiringCache;
+import com.goodfellas.backend.cache.ExpiringCacheMetrics;
+import com.goodfellas.backend.dto.PatientMoodOverviewDTO;
 import com.goodfellas.backend.dto.PatientViewDTO;
+import com.goodfellas.backend.event.AccountChangedEvent;
+import com.goodfellas.backend.event.PatientAssignedEvent;
 import com.goodfellas.backend.model.Psychologist;
 import com.goodfellas.backend.repository.PatientRepository;
 import com.goodfellas.backend.repository.PsychologistRepository;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
 
+import java.time.Duration;
+import java.time.LocalDate;
 import java.util.List;
 
 import static java.util.Optional.ofNullable;
@@ -15,11 +27,32 @@ import static java.util.Optional.ofNullable;
 public class PatientService {
     private final PatientRepository patientRepository;
     private final PsychologistRepository psychologistRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final SharedJournalSync sharedJournalSync;
+
+    /** Difference between the weekly averages below which the trend is reported as STABLE. */
+    private static final double TREND_THRESHOLD = 0.5;
+
+    /**
+     * Caseload overviews by psychologist id. Kept only briefly, so dashboards that poll do not rerun the aggregate
+     * query while new moods still show up within seconds.
+     */
+    private final ExpiringCache<Integer, List<PatientMoodOverviewDTO>> moodOverviews;
 
     @Autowired
-    public PatientService(PatientRepository patientRepository, PsychologistRepository psychologistRepository) {
+    public PatientService(PatientRepository patientRepository,
+                          PsychologistRepository psychologistRepository,
+                          ApplicationEventPublisher eventPublisher,
+                          SharedJournalSync sharedJournalSync,
+                          MeterRegistry meterRegistry,
+                          @Value("${psycare.mood.overview-cache-size:1000}") int overviewCacheSize,
+                          @Value("${psycare.mood.overview-cache-ttl:30s}") Duration overviewCacheTtl) {
         this.patientRepository = patientRepository;
         this.psychologistRepository = psychologistRepository;
+        this.eventPublisher = eventPublisher;
+        this.sharedJournalSync = sharedJournalSync;
+        this.moodOverviews = new ExpiringCache<>(overviewCacheSize, overviewCacheTtl.toMillis());
+        ExpiringCacheMetrics.monitor(meterRegistry, moodOverviews, "patientMoodOverview");
     }
 
     public List<PatientViewDTO> getUnassignedPatients() {
@@ -50,6 +83,33 @@ public class PatientService {
 
     }
 
+    /**
+     * Latest mood, 7-day average and trend of every patient assigned to the psychologist, computed by a single query.
+     */
+    public List<PatientMoodOverviewDTO> getAssignedPatientsMoodOverview(int psychologistId) {
+        List<PatientMoodOverviewDTO> overview = moodOverviews.get(psychologistId);
+        if (overview != null)
+            return overview;
+
+        LocalDate today = LocalDate.now();
+        overview = patientRepository.findMoodOverview(psychologistId, today.minusDays(7), today.minusDays(14));
+        overview.forEach(patient -> patient.setTrend(trend(patient.getAverageLast7Days(), patient.getAveragePrevious7Days())));
+        overview = List.copyOf(overview);
+        moodOverviews.put(psychologistId, overview);
+        return overview;
+    }
+
+    private static String trend(Double current, Double previous) {
+        if (current == null || previous == null)
+            return null;
+        if (current - previous >= TREND_THRESHOLD)
+            return "UP";
+        if (previous - current >= TREND_THRESHOLD)
+            return "DOWN";
+        return "STABLE";
+    }
+
+    @Transactional
     public void assignPatientToPsychologist(String psychologistUsername, int patientId) {
         var psychologist = psychologistRepository.findByUsername(psychologistUsername)
                 .orElseThrow(() -> new RuntimeException("Psychologist not found"));
@@ -64,8 +124,23 @@ public class PatientService {
                     throw new RuntimeException("Patient is already assigned to another psychologist");
                 });
 
+        boolean newlyAssigned = patient.getPsychologist() == null;
         patient.setPsychologist(psychologist);
         patientRepository.save(patient);
+        if (newlyAssigned) {
+            sharedJournalSync.patientAssigned(patientId);
+            eventPublisher.publishEvent(new PatientAssignedEvent(patientId, psychologist.getId()));
+        }
+        eventPublisher.publishEvent(new AccountChangedEvent(patient.getUsername()));
+    }
+
+    /**
+     * Drops the psychologist's cached overview once the assignment is committed, so a poll running during the
+     * transaction cannot cache the caseload without the new patient.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPatientAssigned(PatientAssignedEvent event) {
+        moodOverviews.invalidate(event.psychologistId());
     }
 
 }
@@ -1,48 +1,59 @@
 package com.goodfellas.backend.service;
 
-import com.goodfellas.backend.dto.JournalEntryDTO;
+import com.goodfellas.backend.dto.CursorPageDTO;
+import com.goodfellas.backend.dto.JournalCursor;
+import com.goodfellas.backend.dto.JournalEntrySummaryDTO;
 import com.goodfellas.backend.repository.JournalEntryRepository;
-import com.goodfellas.backend.repository.PsychologistRepository;
+import com.goodfellas.backend.repository.PatientRepository;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.http.HttpStatus;
+import org.springframework.data.domain.Limit;
+import org.springframework.security.access.AccessDeniedException;
 import org.springframework.stereotype.Service;
-import org.springframework.web.server.ResponseStatusException;
 
 import java.util.List;
 
 @Service
 public class PsychologistService {
 
-    private final PsychologistRepository psychologistRepository;
+    private static final int DEFAULT_PAGE_SIZE = 30;
+    private static final int MAX_PAGE_SIZE = 100;
 
     private final JournalEntryRepository journalEntryRepository;
 
+    private final PatientRepository patientRepository;
+
     @Autowired
-    public PsychologistService(PsychologistRepository psychologistRepository, JournalEntryRepository journalEntryRepository) {
-        this.psychologistRepository = psychologistRepository;
+    public PsychologistService(JournalEntryRepository journalEntryRepository, PatientRepository patientRepository) {
         this.journalEntryRepository = journalEntryRepository;
+        this.patientRepository = patientRepository;
     }
 
-
-    public List<JournalEntryDTO> getSharedJournalEntries(String username) {
-
-        var psychologist = psychologistRepository.findByUsername(username)
-                .orElseThrow(() -> new RuntimeException("Psychologist not found"));
-
-        return journalEntryRepository
-                .findSharedEntriesForPsychologist(psychologist.getId())
-                .stream()
-                .map(je -> {
-                    var dto = new JournalEntryDTO();
-                    dto.setId(je.getId());
-                    dto.setTitle(je.getTitle());
-                    dto.setText(je.getText());
-                    dto.setTags(je.getTags());
-                    dto.setDate(je.getDate());
-                    dto.setAllowPsychologist(je.isAllowPsychologist());
-                    dto.setPatientId(je.getPatient().getId());
-                    return dto;
-                })
-                .toList();
+    /**
+     * One page of the journal entries shared with the psychologist, newest first, optionally of a single patient.
+     * One extra row is fetched to know whether another page exists.
+     */
+    public CursorPageDTO<JournalEntrySummaryDTO> getSharedJournalEntries(int psychologistId, Integer patientId, Integer limit, String cursor) {
+        int pageSize = limit == null ? DEFAULT_PAGE_SIZE : Math.min(Math.max(limit, 1), MAX_PAGE_SIZE);
+        JournalCursor position = cursor == null || cursor.isBlank() ? JournalCursor.FIRST : JournalCursor.decode(cursor);
+
+        List<JournalEntrySummaryDTO> rows;
+        if (patientId == null) {
+            rows = journalEntryRepository.findSharedPage(psychologistId, position.date(), position.id(), Limit.of(pageSize + 1));
+        } else {
+            if (!patientRepository.existsByIdAndPsychologistId(patientId, psychologistId))
+                throw new AccessDeniedException("This patient is not assigned to you");
+            rows = journalEntryRepository.findSharedPageOfPatient(patientId, position.date(), position.id(), Limit.of(pageSize + 1));
+        }
+
+        boolean hasMore = rows.size() > pageSize;
+        if (hasMore)
+            rows = rows.subList(0, pageSize);
+
+        String nextCursor = null;
+        if (hasMore) {
+            JournalEntrySummaryDTO last = rows.get(rows.size() - 1);
+            nextCursor = new JournalCursor(last.getDate(), last.getId()).encode();
+        }
+        return new CursorPageDTO<>(rows, nextCursor, hasMore);
     }
 }
@@ -0,0 +1,94 @@
+package com.goodfellas.backend.service;
+
+import com.goodfellas.backend.model.RefreshToken;
+import com.goodfellas.backend.repository.RefreshTokenRepository;
+import com.goodfellas.backend.security.AuthenticatedUser;
+import com.goodfellas.backend.security.InvalidRefreshTokenException;
+import com.goodfellas.backend.security.TokenDigest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+@Service
+public class RefreshTokenService
+{
+    public record Rotation(AuthenticatedUser user, String refreshToken) {}
+
+    private final RefreshTokenRepository refreshTokenRepository;
+    private final Duration refreshExpiration;
+    private final SecureRandom random = new SecureRandom();
+
+    @Autowired
+    public RefreshTokenService(RefreshTokenRepository refreshTokenRepository,
+                               @Value("${psycare.jwt.refresh-expiration:14d}") Duration refreshExpiration)
+    {
+        this.refreshTokenRepository = refreshTokenRepository;
+        this.refreshExpiration = refreshExpiration;
+    }
+
+    /**
+     * Creates a new refresh token for the user and returns its raw value. Only the digest is persisted.
+     */
+    public String issue(AuthenticatedUser user)
+    {
+        byte[] bytes = new byte[32];
+        random.nextBytes(bytes);
+        String token = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+
+        RefreshToken refreshToken = new RefreshToken();
+        refreshToken.setTokenHash(TokenDigest.sha256(token));
+        refreshToken.setUserId(user.getId());
+        refreshToken.setUsername(user.getUsername());
+        refreshToken.setRole(user.getRole());
+        refreshToken.setExpiresAt(LocalDateTime.now().plus(refreshExpiration));
+        refreshTokenRepository.save(refreshToken);
+        return token;
+    }
+
+    /**
+     * Consumes a refresh token and issues its replacement, which extends the session by another refresh period.
+     * The delete doubles as the single-use check: if two requests race with the same token, only one of them
+     * deletes the row and the other one is rejected.
+     * @throws InvalidRefreshTokenException if the token is missing, unknown, already used or expired
+     */
+    @Transactional
+    public Rotation rotate(String token)
+    {
+        if (token == null || token.isBlank())
+            throw new InvalidRefreshTokenException("Refresh token is required");
+
+        String tokenHash = TokenDigest.sha256(token);
+        RefreshToken stored = refreshTokenRepository.findByTokenHash(tokenHash)
+                .orElseThrow(() -> new InvalidRefreshTokenException("Invalid refresh token"));
+
+        if (refreshTokenRepository.deleteByTokenHash(tokenHash) != 1)
+            throw new InvalidRefreshTokenException("Invalid refresh token");
+        if (stored.getExpiresAt().isBefore(LocalDateTime.now()))
+            throw new InvalidRefreshTokenException("Refresh token has expired");
+
+        AuthenticatedUser user = new AuthenticatedUser(stored.getUserId(), stored.getUsername(), "", stored.getRole());
+        return new Rotation(user, issue(user));
+    }
+
+    /**
+     * Ends the session behind a refresh token, e.g. on logout. Unknown tokens are ignored.
+     */
+    @Transactional
+    public void revoke(String token)
+    {
+        refreshTokenRepository.deleteByTokenHash(TokenDigest.sha256(token));
+    }
+
+    @Scheduled(fixedDelayString = "${psycare.jwt.refresh-cleanup-interval:1h}")
+    public void deleteExpiredTokens()
+    {
+        refreshTokenRepository.deleteExpired(LocalDateTime.now());
+    }
+}
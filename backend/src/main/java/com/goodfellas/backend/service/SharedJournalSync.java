@@ -0,0 +1,189 @@
+package com.goodfellas.backend.service;
+
+import com.goodfellas.backend.cache.ExpiringCache;
+import com.goodfellas.backend.cache.ExpiringCacheMetrics;
+import com.goodfellas.backend.dto.JournalEntrySummaryDTO;
+import com.goodfellas.backend.dto.SharedJournalChangesDTO;
+import com.goodfellas.backend.event.JournalEntryChangedEvent;
+import com.goodfellas.backend.event.JournalEntryDeletedEvent;
+import com.goodfellas.backend.event.PatientAssignedEvent;
+import com.goodfellas.backend.model.JournalEntry;
+import com.goodfellas.backend.model.JournalEntryTombstone;
+import com.goodfellas.backend.model.Psychologist;
+import com.goodfellas.backend.repository.JournalEntryRepository;
+import com.goodfellas.backend.repository.JournalEntryTombstoneRepository;
+import com.goodfellas.backend.repository.PatientRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Incremental sync of the journal entries shared with a psychologist. Every change of a shared entry carries a
+ * version from ChangeVersionClock and deletions leave a tombstone, so a dashboard that polls with ?since= only
+ * downloads what changed. The latest version of each psychologist's feed is cached and doubles as the ETag, so an
+ * unchanged feed is answered with 304 before any list query runs. Versions are taken before the commit, so the ETag
+ * is only handed out once the latest version is older than the commit lag; until then a change with a lower version
+ * could still commit without moving the latest version.
+ */
+@Service
+public class SharedJournalSync
+{
+    private static final int MAX_CHANGES = 500;
+
+    private final JournalEntryRepository journalRepository;
+    private final JournalEntryTombstoneRepository tombstoneRepository;
+    private final PatientRepository patientRepository;
+    private final ChangeVersionClock versionClock;
+    private final ExpiringCache<Integer, Long> latestVersions;
+    private final long tombstoneRetentionMillis;
+    private final long commitLagMillis;
+
+    @Autowired
+    public SharedJournalSync(JournalEntryRepository journalRepository,
+                             JournalEntryTombstoneRepository tombstoneRepository,
+                             PatientRepository patientRepository,
+                             ChangeVersionClock versionClock,
+                             MeterRegistry meterRegistry,
+                             @Value("${psycare.journal.sync.version-cache-size:10000}") int cacheSize,
+                             @Value("${psycare.journal.sync.version-cache-ttl:10s}") Duration cacheTtl,
+                             @Value("${psycare.journal.sync.tombstone-retention:30d}") Duration tombstoneRetention,
+                             @Value("${psycare.journal.sync.commit-lag:5s}") Duration commitLag)
+    {
+        this.journalRepository = journalRepository;
+        this.tombstoneRepository = tombstoneRepository;
+        this.patientRepository = patientRepository;
+        this.versionClock = versionClock;
+        this.latestVersions = new ExpiringCache<>(cacheSize, cacheTtl.toMillis());
+        this.tombstoneRetentionMillis = tombstoneRetention.toMillis();
+        this.commitLagMillis = commitLag.toMillis();
+        ExpiringCacheMetrics.monitor(meterRegistry, latestVersions, "sharedJournalVersion");
+    }
+
+    /**
+     * @return the version of the newest change visible to the psychologist, 0 if there is none.
+     */
+    public long latestVersion(int psychologistId)
+    {
+        Long cached = latestVersions.get(psychologistId);
+        if (cached != null)
+            return cached;
+        long latest = Math.max(journalRepository.findLatestSharedVersion(psychologistId),
+                tombstoneRepository.findLatestVersionForPsychologist(psychologistId));
+        latestVersions.put(psychologistId, latest);
+        return latest;
+    }
+
+    /**
+     * @return the ETag of the psychologist's feed, or null while its latest change is younger than the commit lag.
+     */
+    public String etag(int psychologistId)
+    {
+        long latest = latestVersion(psychologistId);
+        if (latest >= versionClock.ago(commitLagMillis))
+            return null;
+        return "\"" + latest + "\"";
+    }
+
+    /**
+     * Called when a patient was assigned to a psychologist. The entries the patient shared before get new versions,
+     * otherwise they would be older than what the psychologist already synced and never show up in a ?since= delta.
+     */
+    @Transactional
+    public void patientAssigned(int patientId)
+    {
+        for (int entryId : journalRepository.findSharedIdsByPatientId(patientId))
+            journalRepository.updateChangeVersion(entryId, versionClock.next());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPatientAssigned(PatientAssignedEvent event)
+    {
+        latestVersions.invalidate(event.psychologistId());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onEntryChanged(JournalEntryChangedEvent event)
+    {
+        // New entries are private and only carry a reference to their patient, so the psychologist is read only for
+        // shared ones
+        JournalEntry entry = event.entry();
+        if (!entry.isAllowPsychologist())
+            return;
+        Psychologist psychologist = entry.getPatient().getPsychologist();
+        if (psychologist != null)
+            advance(psychologist.getId(), entry.getChangeVersion());
+    }
+
+    /**
+     * Called before an entry is deleted, so that synced dashboards drop it if it was shared.
+     * @return the version of the tombstone, 0 if the entry was not shared and none was written.
+     */
+    public long entryDeleted(int patientId, int entryId)
+    {
+        long version = versionClock.next();
+        return tombstoneRepository.insertForSharedEntry(entryId, patientId, version) > 0 ? version : 0;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onEntryDeleted(JournalEntryDeletedEvent event)
+    {
+        if (event.tombstoneVersion() > 0)
+            patientRepository.findPsychologistIdById(event.patientId())
+                    .ifPresent(psychologistId -> advance(psychologistId, event.tombstoneVersion()));
+    }
+
+    private void advance(int psychologistId, long version)
+    {
+        // Runs after the commit; psychologists without a cached version read it from the database on their next poll
+        Long cached = latestVersions.get(psychologistId);
+        if (cached != null && cached < version)
+            latestVersions.put(psychologistId, version);
+    }
+
+    /**
+     * Changes of the entries shared with the psychologist after the given version, at most MAX_CHANGES at a time.
+     */
+    public SharedJournalChangesDTO getChanges(int psychologistId, long since)
+    {
+        if (since < versionClock.ago(tombstoneRetentionMillis))
+            return new SharedJournalChangesDTO(List.of(), List.of(), latestVersion(psychologistId), false, true);
+
+        List<JournalEntrySummaryDTO> changed = journalRepository.findSharedChanges(psychologistId, since, Limit.of(MAX_CHANGES + 1));
+        boolean hasMore = changed.size() > MAX_CHANGES;
+        long until = Long.MAX_VALUE;
+        if (hasMore)
+        {
+            changed = changed.subList(0, MAX_CHANGES);
+            until = changed.get(changed.size() - 1).getChangeVersion();
+        }
+        List<JournalEntryTombstone> tombstones = tombstoneRepository.findDeletedForPsychologist(psychologistId, since, until);
+        List<Integer> deleted = tombstones.stream().map(JournalEntryTombstone::getEntryId).toList();
+        if (hasMore)
+            return new SharedJournalChangesDTO(changed, deleted, until, true, false);
+
+        long seen = since;
+        if (!changed.isEmpty())
+            seen = Math.max(seen, changed.get(changed.size() - 1).getChangeVersion());
+        if (!tombstones.isEmpty())
+            seen = Math.max(seen, tombstones.get(tombstones.size() - 1).getChangeVersion());
+        // Versions are taken before the commit, so a change from the last moments may still become visible with a
+        // lower version than one already seen. Holding the next since back by the commit lag picks those up; the
+        // client receives the changes of that window again and simply applies them twice.
+        long next = Math.max(since, Math.min(seen, versionClock.ago(commitLagMillis)));
+        return new SharedJournalChangesDTO(changed, deleted, next, false, false);
+    }
+
+    @Scheduled(fixedDelayString = "${psycare.journal.sync.tombstone-cleanup-interval:1h}")
+    public void pruneTombstones()
+    {
+        tombstoneRepository.deleteOlderThan(versionClock.ago(tombstoneRetentionMillis));
+    }
+}
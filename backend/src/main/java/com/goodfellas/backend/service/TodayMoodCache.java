@@ -0,0 +1,107 @@
+package com.goodfellas.backend.service;
+
+import com.goodfellas.backend.cache.ExpiringCache;
+import com.goodfellas.backend.cache.ExpiringCacheMetrics;
+import com.goodfellas.backend.dto.MoodDTO;
+import com.goodfellas.backend.event.MoodSubmittedEvent;
+import com.goodfellas.backend.event.MoodsImportedEvent;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Optional;
+
+/**
+ * Whether each patient already submitted a mood today, answering GET /mood/today and the duplicate check of
+ * submitMood without a query. A submitted mood stays cached until local midnight, when all entries expire together.
+ * "Nothing yet" is cached for a shorter time, because another instance may accept the submission.
+ */
+@Component
+public class TodayMoodCache
+{
+    private record Today(LocalDate date, MoodDTO mood) {}
+
+    private final ExpiringCache<Integer, Today> entries;
+    private final long negativeTtlMillis;
+    private final Clock clock;
+
+    @Autowired
+    public TodayMoodCache(MeterRegistry meterRegistry,
+                          @Value("${psycare.mood.today-cache-size:50000}") int cacheSize,
+                          @Value("${psycare.mood.today-cache-negative-ttl:5m}") Duration negativeTtl)
+    {
+        this(meterRegistry, cacheSize, negativeTtl, Clock.systemDefaultZone());
+    }
+
+    public TodayMoodCache(MeterRegistry meterRegistry, int cacheSize, Duration negativeTtl, Clock clock)
+    {
+        this.entries = new ExpiringCache<>(cacheSize, Duration.ofDays(1).toMillis(), clock::millis);
+        this.negativeTtlMillis = negativeTtl.toMillis();
+        this.clock = clock;
+        ExpiringCacheMetrics.monitor(meterRegistry, entries, "todayMood");
+    }
+
+    public LocalDate today()
+    {
+        return LocalDate.now(clock);
+    }
+
+    /**
+     * @return null if unknown, an empty Optional if the patient has not submitted today, otherwise today's mood.
+     */
+    public Optional<MoodDTO> get(int patientId)
+    {
+        Today cached = entries.get(patientId);
+        if (cached == null || !cached.date().equals(today()))
+            return null;
+        return Optional.ofNullable(cached.mood());
+    }
+
+    /**
+     * A null mood records that nothing was submitted yet. It never replaces a cached entry, because a submission
+     * committed while the caller was reading the database has already put the mood.
+     */
+    public void put(int patientId, LocalDate date, MoodDTO mood)
+    {
+        if (!date.equals(today()))
+            return;
+        long midnight = date.plusDays(1).atStartOfDay(clock.getZone()).toInstant().toEpochMilli();
+        if (mood == null)
+            entries.putIfAbsent(patientId, new Today(date, null), Math.min(midnight, clock.millis() + negativeTtlMillis));
+        else
+            entries.put(patientId, new Today(date, mood), midnight);
+    }
+
+    public void invalidate(int patientId)
+    {
+        entries.invalidate(patientId);
+    }
+
+    /**
+     * An import that includes today may have added today's mood; it is forgotten once the import is committed.
+     */
+    @TransactionalEventListener
+    public void onMoodsImported(MoodsImportedEvent event)
+    {
+        if (event.includesToday())
+            invalidate(event.patientId());
+    }
+
+    /**
+     * Caches a submission once it is committed, so a rolled back insert is never reported as submitted.
+     */
+    @TransactionalEventListener
+    public void onMoodSubmitted(MoodSubmittedEvent event)
+    {
+        MoodDTO mood = new MoodDTO();
+        mood.setId(event.moodId());
+        mood.setValue(event.value());
+        mood.setDate(event.date());
+        put(event.patientId(), event.date(), mood);
+    }
+}
@@ -0,0 +1,69 @@
+package com.goodfellas.backend;
+
+import com.goodfellas.backend.security.AuthenticatedUser;
+import com.goodfellas.backend.security.BackgroundRehashAuthenticationProvider;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BackgroundRehashAuthenticationProviderTest
+{
+    @Mock
+    private UserDetailsService userDetailsService;
+    @Mock
+    private UserDetailsPasswordService passwordService;
+
+    private BackgroundRehashAuthenticationProvider provider;
+    private final String USERNAME = "testPatient";
+    private final String PASSWORD = "Secret*1";
+
+    @BeforeEach
+    void setUp()
+    {
+        BCryptPasswordEncoder bcrypt = new BCryptPasswordEncoder(5);
+        DelegatingPasswordEncoder encoder = new DelegatingPasswordEncoder("bcrypt", Map.of("bcrypt", bcrypt));
+        encoder.setDefaultPasswordEncoderForMatches(bcrypt);
+        provider = new BackgroundRehashAuthenticationProvider(userDetailsService, passwordService, encoder, Runnable::run);
+    }
+
+    @Test
+    void authenticate_WeakerStoredHash_UpgradesHash()
+    {
+        String legacyHash = new BCryptPasswordEncoder(4).encode(PASSWORD);
+        when(userDetailsService.loadUserByUsername(USERNAME)).thenReturn(new AuthenticatedUser(1, USERNAME, legacyHash, "ROLE_PATIENT"));
+
+        provider.authenticate(new UsernamePasswordAuthenticationToken(USERNAME, PASSWORD));
+
+        ArgumentCaptor<String> newHash = ArgumentCaptor.forClass(String.class);
+        verify(passwordService).updatePassword(any(UserDetails.class), newHash.capture());
+        assertTrue(newHash.getValue().startsWith("{bcrypt}$2a$05$"));
+    }
+
+    @Test
+    void authenticate_CurrentHash_DoesNotRehash()
+    {
+        String currentHash = "{bcrypt}" + new BCryptPasswordEncoder(5).encode(PASSWORD);
+        when(userDetailsService.loadUserByUsername(USERNAME)).thenReturn(new AuthenticatedUser(1, USERNAME, currentHash, "ROLE_PATIENT"));
+
+        provider.authenticate(new UsernamePasswordAuthenticationToken(USERNAME, PASSWORD));
+
+        verify(passwordService, never()).updatePassword(any(), anyString());
+    }
+}
@@ -0,0 +1,83 @@
+package com.goodfellas.backend;
+
+import com.goodfellas.backend.security.BulkheadPasswordEncoder;
+import com.goodfellas.backend.security.PasswordHashingUnavailableException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BulkheadPasswordEncoderTest
+{
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final CountDownLatch started = new CountDownLatch(1);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final PasswordEncoder slowEncoder = new PasswordEncoder()
+    {
+        @Override
+        public String encode(CharSequence rawPassword)
+        {
+            started.countDown();
+            try
+            {
+                release.await(5, TimeUnit.SECONDS);
+            }
+            catch (InterruptedException e)
+            {
+                Thread.currentThread().interrupt();
+            }
+            return "hashed:" + rawPassword;
+        }
+
+        @Override
+        public boolean matches(CharSequence rawPassword, String encodedPassword)
+        {
+            return encodedPassword.equals("hashed:" + rawPassword);
+        }
+    };
+
+    private final BulkheadPasswordEncoder encoder = new BulkheadPasswordEncoder(slowEncoder, 1, 1, Duration.ofSeconds(5), meterRegistry);
+
+    @AfterEach
+    void tearDown()
+    {
+        release.countDown();
+        encoder.shutdown();
+    }
+
+    @Test
+    void matches_DelegatesToWrappedEncoder()
+    {
+        assertTrue(encoder.matches("secret", "hashed:secret"));
+        assertFalse(encoder.matches("secret", "hashed:other"));
+    }
+
+    @Test
+    void encode_PoolAndQueueFull_RejectsImmediately() throws Exception
+    {
+        CompletableFuture<String> running = CompletableFuture.supplyAsync(() -> encoder.encode("first"));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        CompletableFuture<String> queued = CompletableFuture.supplyAsync(() -> encoder.encode("second"));
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (meterRegistry.get("password.hashing.queue.depth").gauge().value() < 1)
+        {
+            assertTrue(System.nanoTime() < deadline, "The second encode was never queued");
+            Thread.sleep(1);
+        }
+
+        assertThrows(PasswordHashingUnavailableException.class, () -> encoder.encode("third"));
+        assertEquals(1.0, meterRegistry.get("password.hashing.rejected").counter().count());
+
+        release.countDown();
+        assertEquals("hashed:first", running.get(5, TimeUnit.SECONDS));
+        assertEquals("hashed:second", queued.get(5, TimeUnit.SECONDS));
+    }
+}
@@ -0,0 +1,103 @@
+package com.goodfellas.backend;
+
+import com.goodfellas.backend.event.AccountChangedEvent;
+import com.goodfellas.backend.model.Account;
+import com.goodfellas.backend.repository.AccountRepository;
+import com.goodfellas.backend.repository.PatientRepository;
+import com.goodfellas.backend.repository.PsychologistRepository;
+import com.goodfellas.backend.security.AuthenticatedUser;
+import com.goodfellas.backend.service.CustomUserDetailsService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+
+import java.time.Duration;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CustomUserDetailsServiceTest
+{
+    @Mock
+    private AccountRepository accountRepository;
+    @Mock
+    private PsychologistRepository psychologistRepository;
+    @Mock
+    private PatientRepository patientRepository;
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    private CustomUserDetailsService userDetailsService;
+    private SimpleMeterRegistry meterRegistry;
+    private final String USERNAME = "testPatient";
+
+    @BeforeEach
+    void setUp()
+    {
+        meterRegistry = new SimpleMeterRegistry();
+        userDetailsService = new CustomUserDetailsService(accountRepository, psychologistRepository, patientRepository, eventPublisher, meterRegistry, 100, Duration.ofMinutes(10));
+
+        Account account = new Account();
+        account.setRole("ROLE_PATIENT");
+        account.setUserId(3);
+        account.setUsername(USERNAME);
+        account.setPassword("hash");
+        account.setFirstName("Jane");
+        account.setAge(30);
+        lenient().when(accountRepository.findFirstByUsernameOrderByRoleDesc(USERNAME)).thenReturn(Optional.of(account));
+    }
+
+    @Test
+    void loadUserByUsername_RepeatedLookup_HitsCache()
+    {
+        UserDetails first = userDetailsService.loadUserByUsername(USERNAME);
+        UserDetails second = userDetailsService.loadUserByUsername(USERNAME);
+
+        assertEquals(3, ((AuthenticatedUser) second).getId());
+        assertEquals("Jane", ((AuthenticatedUser) second).getProfile().getFirstName());
+        assertEquals("hash", second.getPassword());
+        assertNotSame(first, second);
+        verify(accountRepository, times(1)).findFirstByUsernameOrderByRoleDesc(USERNAME);
+        assertEquals(1.0, meterRegistry.get("cache.gets").tag("result", "hit").functionCounter().count());
+        assertEquals(1.0, meterRegistry.get("cache.gets").tag("result", "miss").functionCounter().count());
+    }
+
+    @Test
+    void loadUserByUsername_AfterAccountChangedEvent_QueriesAgain()
+    {
+        userDetailsService.loadUserByUsername(USERNAME);
+        userDetailsService.onAccountChanged(new AccountChangedEvent(USERNAME));
+        userDetailsService.loadUserByUsername(USERNAME);
+
+        verify(accountRepository, times(2)).findFirstByUsernameOrderByRoleDesc(USERNAME);
+    }
+
+    @Test
+    void loadUserByUsername_UnknownUser_ThrowsException()
+    {
+        when(accountRepository.findFirstByUsernameOrderByRoleDesc("ghost")).thenReturn(Optional.empty());
+        assertThrows(UsernameNotFoundException.class, () -> userDetailsService.loadUserByUsername("ghost"));
+    }
+
+    @Test
+    void updatePassword_Patient_UpdatesPatientTableAndPublishesEvent()
+    {
+        UserDetails user = userDetailsService.loadUserByUsername(USERNAME);
+        UserDetails updated = userDetailsService.updatePassword(user, "{bcrypt}newHash");
+
+        assertEquals("{bcrypt}newHash", updated.getPassword());
+        verify(patientRepository).updatePassword(3, "{bcrypt}newHash");
+        verify(psychologistRepository, never()).updatePassword(anyInt(), anyString());
+        verify(eventPublisher).publishEvent(new AccountChangedEvent(USERNAME));
+    }
+}
@@ -0,0 +1,102 @@
+package com.goodfellas.backend;
+
+import com.goodfellas.backend.push.EventStreamHub;
+import com.goodfellas.backend.push.EventStreamHub.Recipient;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EventStreamHubTest
+{
+    private final List<Runnable> pendingSends = new ArrayList<>();
+
+    private EventStreamHub hub(int queueCapacity, int maxStreamsPerAccount)
+    {
+        // Sends are only queued, never run, so the subscriber queues fill up as they would for a stalled client
+        return new EventStreamHub(new SimpleMeterRegistry(), pendingSends::add, Duration.ofMinutes(1), Duration.ofSeconds(10), queueCapacity, maxStreamsPerAccount);
+    }
+
+    @Test
+    void subscribe_ClosesTheOldestStreamAboveTheLimit()
+    {
+        EventStreamHub hub = hub(8, 2);
+        hub.subscribe(Recipient.patient(1));
+        hub.subscribe(Recipient.patient(1));
+        hub.subscribe(Recipient.patient(1));
+        hub.subscribe(Recipient.psychologist(1));
+
+        assertEquals(3, hub.subscriberCount());
+    }
+
+    @Test
+    void send_SchedulesOneDrainPerSubscriber()
+    {
+        EventStreamHub hub = hub(8, 5);
+        hub.subscribe(Recipient.psychologist(4));
+        hub.send(Recipient.psychologist(4), "journal-shared", Map.of("entryId", 1));
+        hub.send(Recipient.psychologist(4), "journal-shared", Map.of("entryId", 2));
+        hub.send(Recipient.psychologist(5), "journal-shared", Map.of("entryId", 3));
+
+        assertEquals(1, pendingSends.size());
+    }
+
+    @Test
+    void send_DisconnectsSubscribersThatFallBehind()
+    {
+        EventStreamHub hub = hub(3, 5);
+        hub.subscribe(Recipient.patient(2));
+        hub.send(Recipient.patient(2), "appointment-booked", Map.of("appointmentId", 1));
+        hub.heartbeat();
+        assertEquals(1, hub.subscriberCount());
+
+        hub.send(Recipient.patient(2), "appointment-booked", Map.of("appointmentId", 2));
+
+        assertEquals(0, hub.subscriberCount());
+        assertFalse(hub.hasSubscribers());
+    }
+
+    @Test
+    void disconnect_ClosesAllStreamsOfTheAccountOnASenderThread()
+    {
+        EventStreamHub hub = hub(8, 5);
+        hub.subscribe(Recipient.patient(3));
+        hub.subscribe(Recipient.patient(3));
+        hub.subscribe(Recipient.psychologist(3));
+        pendingSends.clear();
+
+        hub.disconnect(Recipient.patient(3));
+
+        assertEquals(1, hub.subscriberCount());
+        // Completing an emitter waits for its write in progress, so it is left to the sender pool
+        assertTrue(pendingSends.isEmpty());
+        hub.send(Recipient.patient(3), "appointment-booked", Map.of("appointmentId", 1));
+        assertTrue(pendingSends.isEmpty());
+    }
+
+    @Test
+    void rejectedDrain_DropsOnlyThatStream()
+    {
+        List<Runnable> accepted = new ArrayList<>();
+        // The executor takes one drain, then its backlog is full
+        EventStreamHub hub = new EventStreamHub(new SimpleMeterRegistry(), command -> {
+            if (!accepted.isEmpty())
+                throw new RejectedExecutionException("backlog full");
+            accepted.add(command);
+        }, Duration.ofMinutes(1), Duration.ofSeconds(10), 8, 5);
+
+        hub.subscribe(Recipient.patient(1));
+        hub.subscribe(Recipient.patient(2));
+
+        assertEquals(1, hub.subscriberCount());
+        assertEquals(1, accepted.size());
+        hub.send(Recipient.patient(2), "appointment-booked", Map.of("appointmentId", 1));
+        assertEquals(1, accepted.size());
+    }
+}
@@ -0,0 +1,177 @@
+package com.goodfellas.backend;
+
+import com.goodfellas.backend.security.AuthenticatedUser;
+import com.goodfellas.backend.security.JWTAuthenticationFilter;
+import com.goodfellas.backend.security.JWTGenerator;
+import com.goodfellas.backend.security.SecurityConstants;
+import com.goodfellas.backend.security.TokenRevocationList;
+import com.goodfellas.backend.security.TokenVerification;
+import com.goodfellas.backend.service.CustomUserDetailsService;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ClaimsBuilder;
+import io.jsonwebtoken.Jwts;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class JWTAuthenticationFilterTest
+{
+    @Mock
+    private JWTGenerator tokenGenerator;
+    @Mock
+    private CustomUserDetailsService customUserDetailsService;
+    @Mock
+    private TokenRevocationList tokenRevocationList;
+
+    @InjectMocks
+    private JWTAuthenticationFilter filter;
+
+    private final AuthenticatedUser storedAccount = new AuthenticatedUser(7, "testPatient", "hash", "ROLE_PATIENT");
+
+    @BeforeEach
+    void setUp()
+    {
+        ReflectionTestUtils.setField(filter, "statelessPrincipal", true);
+        ReflectionTestUtils.setField(filter, "identityFreshness", Duration.ofMinutes(15));
+    }
+
+    @AfterEach
+    void tearDown()
+    {
+        SecurityContextHolder.clearContext();
+    }
+
+    private ClaimsBuilder claims(Duration age)
+    {
+        return Jwts.claims()
+                .subject("testPatient")
+                .id("jti-1")
+                .issuedAt(new Date(System.currentTimeMillis() - age.toMillis()))
+                .add(SecurityConstants.ROLE_CLAIM, "ROLE_PATIENT")
+                .add(SecurityConstants.USER_ID_CLAIM, 7);
+    }
+
+    private void givenToken(String token, Claims claims)
+    {
+        when(tokenGenerator.verify(token)).thenReturn(TokenVerification.valid(claims));
+    }
+
+    private Authentication filter(MockHttpServletRequest request) throws Exception
+    {
+        filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+        return SecurityContextHolder.getContext().getAuthentication();
+    }
+
+    private Authentication filterWithHeader(String token) throws Exception
+    {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/journal");
+        request.addHeader("Authorization", "Bearer " + token);
+        return filter(request);
+    }
+
+    @Test
+    void freshToken_BuildsThePrincipalFromItsClaims() throws Exception
+    {
+        givenToken("access", claims(Duration.ofMinutes(1)).build());
+
+        Authentication authentication = filterWithHeader("access");
+
+        AuthenticatedUser principal = (AuthenticatedUser) authentication.getPrincipal();
+        assertEquals(7, principal.getId());
+        assertEquals("testPatient", principal.getUsername());
+        assertEquals("ROLE_PATIENT", authentication.getAuthorities().iterator().next().getAuthority());
+        verifyNoInteractions(customUserDetailsService);
+    }
+
+    @Test
+    void tokenOlderThanIdentityFreshness_LoadsTheAccount() throws Exception
+    {
+        givenToken("access", claims(Duration.ofMinutes(20)).build());
+        when(customUserDetailsService.loadUserByUsername("testPatient")).thenReturn(storedAccount);
+
+        assertSame(storedAccount, filterWithHeader("access").getPrincipal());
+    }
+
+    @Test
+    void statelessPrincipalDisabled_LoadsTheAccount() throws Exception
+    {
+        ReflectionTestUtils.setField(filter, "statelessPrincipal", false);
+        givenToken("access", claims(Duration.ofMinutes(1)).build());
+        when(customUserDetailsService.loadUserByUsername("testPatient")).thenReturn(storedAccount);
+
+        assertSame(storedAccount, filterWithHeader("access").getPrincipal());
+    }
+
+    @Test
+    void tokenWithoutRoleOrUid_LoadsTheAccount() throws Exception
+    {
+        givenToken("no-role", claims(Duration.ofMinutes(1)).delete(SecurityConstants.ROLE_CLAIM).build());
+        givenToken("no-uid", claims(Duration.ofMinutes(1)).delete(SecurityConstants.USER_ID_CLAIM).build());
+        when(customUserDetailsService.loadUserByUsername("testPatient")).thenReturn(storedAccount);
+
+        assertSame(storedAccount, filterWithHeader("no-role").getPrincipal());
+        SecurityContextHolder.clearContext();
+        assertSame(storedAccount, filterWithHeader("no-uid").getPrincipal());
+        verify(customUserDetailsService, times(2)).loadUserByUsername("testPatient");
+    }
+
+    @Test
+    void revokedToken_IsIgnored() throws Exception
+    {
+        givenToken("access", claims(Duration.ofMinutes(1)).build());
+        when(tokenRevocationList.isRevoked("jti-1")).thenReturn(true);
+
+        assertNull(filterWithHeader("access"));
+    }
+
+    @Test
+    void streamToken_IsOnlyAcceptedAsQueryParameterOfTheEventStream() throws Exception
+    {
+        Claims streamClaims = claims(Duration.ZERO)
+                .add(SecurityConstants.SCOPE_CLAIM, SecurityConstants.EVENTS_SCOPE)
+                .add(SecurityConstants.SESSION_CLAIM, "jti-1")
+                .build();
+        givenToken("stream", streamClaims);
+        givenToken("access", claims(Duration.ZERO).build());
+
+        MockHttpServletRequest events = new MockHttpServletRequest("GET", "/events");
+        events.setParameter("token", "stream");
+        assertNotNull(filter(events));
+        SecurityContextHolder.clearContext();
+
+        // A stream token cannot be used as a bearer token, and an access token cannot ride in the URL
+        assertNull(filterWithHeader("stream"));
+        MockHttpServletRequest accessInUrl = new MockHttpServletRequest("GET", "/events");
+        accessInUrl.setParameter("token", "access");
+        assertNull(filter(accessInUrl));
+        verify(tokenRevocationList, never()).isRevoked(argThat(id -> !"jti-1".equals(id)));
+    }
+
+    @Test
+    void queryParameter_IsIgnoredOutsideTheEventStream() throws Exception
+    {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/journal");
+        request.setParameter("token", "stream");
+
+        assertNull(filter(request));
+        verify(tokenGenerator, never()).verify(anyString());
+    }
+}
@@ -0,0 +1,62 @@
+package com.goodfellas.backend;
+
+import com.goodfellas.backend.security.AuthenticatedUser;
+import com.goodfellas.backend.security.JWTGenerator;
+import com.goodfellas.backend.security.SecurityConstants;
+import com.goodfellas.backend.security.TokenVerification;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JWTGeneratorTest
+{
+    private JWTGenerator jwtGenerator;
+    private String token;
+
+    @BeforeEach
+    void setUp()
+    {
+        SecurityConstants constants = new SecurityConstants();
+        constants.init();
+        jwtGenerator = new JWTGenerator(constants, 100, Duration.ofMinutes(5));
+
+        AuthenticatedUser principal = new AuthenticatedUser(7, "testPatient", "", "ROLE_PATIENT");
+        token = jwtGenerator.generateToken(new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities()));
+    }
+
+    @Test
+    void verify_ValidToken_ReturnsRoleAndIdClaims()
+    {
+        TokenVerification verification = jwtGenerator.verify(token);
+        assertTrue(verification.isValid());
+        assertEquals("testPatient", verification.claims().getSubject());
+        assertEquals("ROLE_PATIENT", verification.claims().get(SecurityConstants.ROLE_CLAIM, String.class));
+        assertEquals(7, verification.claims().get(SecurityConstants.USER_ID_CLAIM, Integer.class));
+    }
+
+    @Test
+    void verify_RepeatedToken_ReturnsCachedClaims()
+    {
+        assertSame(jwtGenerator.verify(token).claims(), jwtGenerator.verify(token).claims());
+    }
+
+    @Test
+    void verify_TamperedToken_ReturnsError()
+    {
+        String tampered = token.substring(0, token.length() - 4) + "AAAA";
+        TokenVerification verification = jwtGenerator.verify(tampered);
+        assertFalse(verification.isValid());
+        assertNotNull(verification.error());
+        assertFalse(jwtGenerator.validateToken(tampered));
+    }
+
+    @Test
+    void verify_EmptyToken_ReturnsError()
+    {
+        assertFalse(jwtGenerator.verify("").isValid());
+    }
+}
@@ -1,11 +1,19 @@
 package com.goodfellas.backend;
 import com.goodfellas.backend.dto.JournalEntryDTO;
+import com.goodfellas.backend.dto.JournalEntrySummaryDTO;
+import com.goodfellas.backend.event.JournalEntryChangedEvent;
+import com.goodfellas.backend.event.JournalEntryDeletedEvent;
+import com.goodfellas.backend.event.JournalEntrySharedEvent;
 import com.goodfellas.backend.model.JournalEntry;
 import com.goodfellas.backend.model.Patient;
 import com.goodfellas.backend.model.Psychologist;
 import com.goodfellas.backend.repository.JournalEntryRepository;
 import com.goodfellas.backend.repository.PatientRepository;
+import com.goodfellas.backend.search.JournalSearchIndex;
+import com.goodfellas.backend.service.ChangeVersionClock;
 import com.goodfellas.backend.service.JournalEntryService;
+import com.goodfellas.backend.service.JournalTagService;
+import com.goodfellas.backend.service.SharedJournalSync;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
@@ -14,6 +22,7 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.access.AccessDeniedException;
 
 import java.util.List;
@@ -30,6 +39,16 @@ class JournalEntryServiceTest
     private JournalEntryRepository journalRepository;
     @Mock
     private PatientRepository patientRepository;
+    @Mock
+    private JournalSearchIndex searchIndex;
+    @Mock
+    private JournalTagService tagService;
+    @Mock
+    private ChangeVersionClock versionClock;
+    @Mock
+    private SharedJournalSync sharedJournalSync;
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
     @InjectMocks
     private JournalEntryService journalEntryService;
 
@@ -64,17 +83,26 @@ class JournalEntryServiceTest
         @Test
         void getMyEntries_ReturnsList()
         {
-            when(journalRepository.findByPatient_Username(USERNAME)).thenReturn(List.of(testEntry));
-            List<JournalEntryDTO> result = journalEntryService.getMyEntries(USERNAME);
+            JournalEntrySummaryDTO summary = new JournalEntrySummaryDTO(ENTRY_ID, "My Day", null, null, false, 100, "Content", 7, 0L);
+            when(journalRepository.findSummariesByPatientId(100)).thenReturn(List.of(summary));
+            List<JournalEntrySummaryDTO> result = journalEntryService.getMyEntries(100);
             assertEquals(1, result.size());
             assertEquals("My Day", result.get(0).getTitle());
         }
 
+        @Test
+        void summary_MarksTruncatedPreviews()
+        {
+            String preview = "x".repeat(JournalEntrySummaryDTO.PREVIEW_LENGTH);
+            assertEquals(preview + "…", new JournalEntrySummaryDTO(1, "t", null, null, false, 1, preview, 5000, 0L).getPreview());
+            assertEquals(preview, new JournalEntrySummaryDTO(1, "t", null, null, false, 1, preview, preview.length(), 0L).getPreview());
+        }
+
         @Test
         void getEntry_Success_WhenOwner()
         {
-            when(journalRepository.findById(ENTRY_ID)).thenReturn(Optional.of(testEntry));
-            JournalEntryDTO result = journalEntryService.getEntry(USERNAME, ENTRY_ID);
+            when(journalRepository.findByIdAndPatient_Id(ENTRY_ID, 100)).thenReturn(Optional.of(testEntry));
+            JournalEntryDTO result = journalEntryService.getEntry(100, ENTRY_ID);
             assertNotNull(result);
             assertEquals(ENTRY_ID, result.getId());
         }
@@ -82,9 +110,18 @@ class JournalEntryServiceTest
         @Test
         void getEntry_ThrowsException_WhenNotOwner()
         {
-            testPatient.setUsername("otherUser");
-            when(journalRepository.findById(ENTRY_ID)).thenReturn(Optional.of(testEntry));
-            assertThrows(AccessDeniedException.class, () -> journalEntryService.getEntry(USERNAME, ENTRY_ID));
+            when(journalRepository.findByIdAndPatient_Id(ENTRY_ID, 100)).thenReturn(Optional.empty());
+            when(journalRepository.existsById(ENTRY_ID)).thenReturn(true);
+            assertThrows(AccessDeniedException.class, () -> journalEntryService.getEntry(100, ENTRY_ID));
+        }
+
+        @Test
+        void getEntry_ThrowsNotFound_WhenMissing()
+        {
+            when(journalRepository.findByIdAndPatient_Id(ENTRY_ID, 100)).thenReturn(Optional.empty());
+            when(journalRepository.existsById(ENTRY_ID)).thenReturn(false);
+            RuntimeException ex = assertThrows(RuntimeException.class, () -> journalEntryService.getEntry(100, ENTRY_ID));
+            assertEquals("Journal entry not found", ex.getMessage());
         }
     }
 
@@ -95,17 +132,10 @@ class JournalEntryServiceTest
         @Test
         void createEntry_Success()
         {
-            when(patientRepository.findByUsername(USERNAME)).thenReturn(Optional.of(testPatient));
-            journalEntryService.createEntry(USERNAME, testDTO);
+            when(patientRepository.getReferenceById(100)).thenReturn(testPatient);
+            journalEntryService.createEntry(100, testDTO);
             verify(journalRepository, times(1)).save(any(JournalEntry.class));
-        }
-
-        @Test
-        void createEntry_PatientNotFound_ThrowsException()
-        {
-            when(patientRepository.findByUsername(USERNAME)).thenReturn(Optional.empty());
-            RuntimeException ex = assertThrows(RuntimeException.class, () -> journalEntryService.createEntry(USERNAME, testDTO));
-            assertEquals("Patient not found", ex.getMessage());
+            verify(patientRepository, never()).findByUsername(any());
         }
     }
 
@@ -116,18 +146,34 @@ class JournalEntryServiceTest
         @Test
         void updateEntry_Success_WhenOwner()
         {
-            when(journalRepository.findById(ENTRY_ID)).thenReturn(Optional.of(testEntry));
-            journalEntryService.updateEntry(USERNAME, ENTRY_ID, testDTO);
+            when(journalRepository.findOwnedWithPatient(ENTRY_ID, 100)).thenReturn(Optional.of(testEntry));
+            journalEntryService.updateEntry(100, ENTRY_ID, testDTO);
             verify(journalRepository).save(testEntry);
+            verify(tagService).replaceTags(testEntry);
+            verify(eventPublisher).publishEvent(new JournalEntryChangedEvent(testEntry));
+            verify(searchIndex, never()).index(any());
             assertEquals("Updated Title", testEntry.getTitle());
         }
 
         @Test
         void deleteEntry_Success_WhenOwner()
         {
-            when(journalRepository.findById(ENTRY_ID)).thenReturn(Optional.of(testEntry));
-            journalEntryService.deleteEntry(USERNAME, ENTRY_ID);
-            verify(journalRepository).delete(testEntry);
+            when(sharedJournalSync.entryDeleted(100, ENTRY_ID)).thenReturn(42L);
+            when(journalRepository.deleteOwned(ENTRY_ID, 100)).thenReturn(1);
+            journalEntryService.deleteEntry(100, ENTRY_ID);
+            verify(tagService).removeTags(ENTRY_ID);
+            verify(eventPublisher).publishEvent(new JournalEntryDeletedEvent(ENTRY_ID, 100, 42L));
+            verify(journalRepository, never()).findById(anyInt());
+        }
+
+        @Test
+        void deleteEntry_ThrowsException_WhenNotOwner()
+        {
+            when(journalRepository.deleteOwned(ENTRY_ID, 100)).thenReturn(0);
+            when(journalRepository.existsById(ENTRY_ID)).thenReturn(true);
+            assertThrows(AccessDeniedException.class, () -> journalEntryService.deleteEntry(100, ENTRY_ID));
+            verify(tagService, never()).removeTags(anyInt());
+            verify(eventPublisher, never()).publishEvent(any());
         }
     }
 
@@ -138,18 +184,22 @@ class JournalEntryServiceTest
         @Test
         void shareWithPsychologist_Success() {
             testPatient.setPsychologist(new Psychologist());
-            when(journalRepository.findById(ENTRY_ID)).thenReturn(Optional.of(testEntry));
-            journalEntryService.shareWithPsychologist(USERNAME, ENTRY_ID);
+            when(journalRepository.findOwnedWithPatient(ENTRY_ID, 100)).thenReturn(Optional.of(testEntry));
+            when(versionClock.next()).thenReturn(42L);
+            journalEntryService.shareWithPsychologist(100, ENTRY_ID);
             assertTrue(testEntry.isAllowPsychologist());
+            assertEquals(42L, testEntry.getChangeVersion());
             verify(journalRepository).save(testEntry);
+            verify(eventPublisher).publishEvent(new JournalEntryChangedEvent(testEntry));
+            verify(eventPublisher).publishEvent(any(JournalEntrySharedEvent.class));
         }
 
         @Test
         void shareWithPsychologist_NoPsychologistAssigned_ThrowsException()
         {
             testPatient.setPsychologist(null);
-            when(journalRepository.findById(ENTRY_ID)).thenReturn(Optional.of(testEntry));
-            RuntimeException ex = assertThrows(RuntimeException.class, () -> journalEntryService.shareWithPsychologist(USERNAME, ENTRY_ID));
+            when(journalRepository.findOwnedWithPatient(ENTRY_ID, 100)).thenReturn(Optional.of(testEntry));
+            RuntimeException ex = assertThrows(RuntimeException.class, () -> journalEntryService.shareWithPsychologist(100, ENTRY_ID));
             assertTrue(ex.getMessage().contains("not assigned to a psychologist"));
         }
     }
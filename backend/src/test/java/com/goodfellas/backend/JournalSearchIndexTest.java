@@ -0,0 +1,173 @@
+package com.goodfellas.backend;
+
+import com.goodfellas.backend.event.JournalEntryChangedEvent;
+import com.goodfellas.backend.model.JournalEntry;
+import com.goodfellas.backend.model.Patient;
+import com.goodfellas.backend.model.Psychologist;
+import com.goodfellas.backend.repository.JournalEntryRepository;
+import com.goodfellas.backend.search.JournalSearchIndex;
+import com.goodfellas.backend.search.JournalTokenizer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class JournalSearchIndexTest
+{
+    private static final int PATIENT_ID = 7;
+    private static final int PSYCHOLOGIST_ID = 3;
+
+    @Mock
+    private JournalEntryRepository journalRepository;
+
+    private final AtomicLong millis = new AtomicLong(1_000_000);
+    private JournalSearchIndex index;
+    private Patient patient;
+
+    @BeforeEach
+    void setUp()
+    {
+        index = new JournalSearchIndex(journalRepository, 100, Duration.ofMinutes(5), millis::get);
+        patient = new Patient();
+        patient.setId(PATIENT_ID);
+    }
+
+    private JournalEntry entry(int id, String title, String text, String tags, boolean shared)
+    {
+        JournalEntry entry = new JournalEntry();
+        entry.setId(id);
+        entry.setTitle(title);
+        entry.setText(text);
+        entry.setTags(tags);
+        entry.setAllowPsychologist(shared);
+        entry.setPatient(patient);
+        return entry;
+    }
+
+    private List<Integer> ids(List<JournalSearchIndex.Hit> hits)
+    {
+        return hits.stream().map(JournalSearchIndex.Hit::entryId).toList();
+    }
+
+    @Test
+    void search_RanksTitleMatchesFirstAndMatchesStems()
+    {
+        when(journalRepository.findByPatient_Id(PATIENT_ID)).thenReturn(List.of(
+                entry(1, "Monday", "I was feeling anxious before the exam", "school", false),
+                entry(2, "Anxiety", "Long walk in the park", null, false),
+                entry(3, "Weekend", "Cooked dinner with friends", "friends", false)));
+
+        assertEquals(List.of(1), ids(index.search(PATIENT_ID, "feel", 10)));
+        assertEquals(List.of(2, 1), ids(index.search(PATIENT_ID, "anxious anxiety", 10)));
+        assertTrue(index.search(PATIENT_ID, "the", 10).isEmpty());
+    }
+
+    @Test
+    void search_BuildsTheIndexOnceAndFollowsUpdates()
+    {
+        when(journalRepository.findByPatient_Id(PATIENT_ID)).thenReturn(List.of(entry(1, "Monday", "Quiet day", null, false)));
+        assertEquals(List.of(1), ids(index.search(PATIENT_ID, "quiet", 10)));
+
+        index.index(entry(1, "Monday", "Busy day", null, false));
+        index.index(entry(2, "Tuesday", "Quiet again", null, true));
+        assertEquals(List.of(2), ids(index.search(PATIENT_ID, "quiet", 10)));
+
+        index.remove(PATIENT_ID, 2);
+        assertTrue(index.search(PATIENT_ID, "quiet", 10).isEmpty());
+        verify(journalRepository, times(1)).findByPatient_Id(PATIENT_ID);
+    }
+
+    @Test
+    void index_KeepsTheNewestVersionWhenEventsArriveOutOfOrder()
+    {
+        when(journalRepository.findByPatient_Id(PATIENT_ID)).thenReturn(List.of());
+        index.search(PATIENT_ID, "walk", 10);
+
+        JournalEntry newer = entry(1, "Monday", "Long walk", null, false);
+        newer.setChangeVersion(20);
+        JournalEntry older = entry(1, "Monday", "Rainy", null, false);
+        older.setChangeVersion(10);
+        index.onEntryChanged(new JournalEntryChangedEvent(newer));
+        index.onEntryChanged(new JournalEntryChangedEvent(older));
+
+        assertEquals(List.of(1), ids(index.search(PATIENT_ID, "walk", 10)));
+        assertTrue(index.search(PATIENT_ID, "rainy", 10).isEmpty());
+    }
+
+    @Test
+    void searchShared_RanksTheWholeCaseloadTogetherAndHonoursLimit()
+    {
+        Psychologist psychologist = new Psychologist();
+        psychologist.setId(PSYCHOLOGIST_ID);
+        patient.setPsychologist(psychologist);
+        Patient other = new Patient();
+        other.setId(8);
+        other.setPsychologist(psychologist);
+        JournalEntry otherEntry = entry(4, "Sleep", "Slept badly after the panic attack", null, true);
+        otherEntry.setPatient(other);
+        when(journalRepository.findSharedByPsychologistId(PSYCHOLOGIST_ID)).thenReturn(List.of(
+                entry(2, "Sleep", "Slept well", null, true),
+                entry(3, "Sleep", "Slept late", null, true),
+                otherEntry));
+
+        List<JournalSearchIndex.Hit> hits = index.searchShared(PSYCHOLOGIST_ID, "panic sleep", 10);
+        assertEquals(4, hits.get(0).entryId());
+        assertEquals(8, hits.get(0).patientId());
+        assertEquals(Set.of(2, 3, 4), Set.copyOf(ids(hits)));
+        assertEquals(1, index.searchShared(PSYCHOLOGIST_ID, "sleep", 1).size());
+
+        index.index(entry(5, "Sleep", "Slept in", null, true));
+        index.index(entry(6, "Sleep", "Private nap", null, false));
+        assertEquals(Set.of(2, 3, 4, 5), Set.copyOf(ids(index.searchShared(PSYCHOLOGIST_ID, "sleep", 10))));
+        index.remove(8, 4);
+        assertFalse(ids(index.searchShared(PSYCHOLOGIST_ID, "sleep", 10)).contains(4));
+        verify(journalRepository, never()).findByPatient_Id(anyInt());
+    }
+
+    @Test
+    void search_RebuildsIndexesOlderThanTheTtl()
+    {
+        when(journalRepository.findByPatient_Id(PATIENT_ID))
+                .thenReturn(List.of(entry(1, "Monday", "Quiet day", null, false)))
+                .thenReturn(List.of(entry(2, "Tuesday", "Quiet again", null, false)));
+        assertEquals(List.of(1), ids(index.search(PATIENT_ID, "quiet", 10)));
+
+        // A write handled by another instance is only picked up once the index expires
+        millis.addAndGet(Duration.ofMinutes(5).toMillis());
+        assertEquals(List.of(2), ids(index.search(PATIENT_ID, "quiet", 10)));
+        verify(journalRepository, times(2)).findByPatient_Id(PATIENT_ID);
+    }
+
+    @Test
+    void search_FailedBuildIsRetried()
+    {
+        when(journalRepository.findByPatient_Id(PATIENT_ID))
+                .thenThrow(new IllegalStateException("database down"))
+                .thenReturn(List.of(entry(1, "Monday", "Quiet day", null, false)));
+
+        assertThrows(IllegalStateException.class, () -> index.search(PATIENT_ID, "quiet", 10));
+        assertEquals(List.of(1), ids(index.search(PATIENT_ID, "quiet", 10)));
+    }
+
+    @Test
+    void tokenizer_StripsAccentsAndBuildsSnippets()
+    {
+        assertEquals(List.of("fericita", "zi"), JournalTokenizer.terms("Fericită zi!"));
+
+        String text = "Nothing much happened in the morning. ".repeat(5) + "Then a long panic attack at work. " + "Rest of the day was calm. ".repeat(5);
+        String snippet = JournalTokenizer.snippet(text, Set.of("panic"), 60);
+        assertTrue(snippet.contains("panic"));
+        assertTrue(snippet.startsWith("…") && snippet.endsWith("…"));
+    }
+}
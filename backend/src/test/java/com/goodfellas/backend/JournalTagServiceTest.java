@@ -0,0 +1,61 @@
+package com.goodfellas.backend;
+
+import com.goodfellas.backend.model.JournalEntry;
+import com.goodfellas.backend.model.JournalEntryTag;
+import com.goodfellas.backend.model.Patient;
+import com.goodfellas.backend.repository.JournalEntryRepository;
+import com.goodfellas.backend.repository.JournalEntryTagRepository;
+import com.goodfellas.backend.service.JournalTagService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class JournalTagServiceTest
+{
+    @Mock
+    private JournalEntryTagRepository tagRepository;
+    @Mock
+    private JournalEntryRepository journalRepository;
+    @InjectMocks
+    private JournalTagService tagService;
+
+    @Test
+    void normalize_MergesCaseHashesAndWhitespace()
+    {
+        assertEquals(List.of("work", "late night"), JournalTagService.normalize("Work, #work , WORK,,  Late   Night "));
+        assertTrue(JournalTagService.normalize(null).isEmpty());
+        assertTrue(JournalTagService.normalize(" , #").isEmpty());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void replaceTags_OnlyWritesTheTagsThatChanged()
+    {
+        Patient patient = new Patient();
+        patient.setId(3);
+        JournalEntry entry = new JournalEntry();
+        entry.setId(10);
+        entry.setPatient(patient);
+        entry.setTags("work, family");
+
+        JournalEntryTag work = new JournalEntryTag(10, 3, "work");
+        JournalEntryTag sleep = new JournalEntryTag(10, 3, "sleep");
+        when(tagRepository.findByEntryId(10)).thenReturn(List.of(work, sleep));
+
+        tagService.replaceTags(entry);
+
+        verify(tagRepository).deleteAll(List.of(sleep));
+        ArgumentCaptor<List<JournalEntryTag>> saved = ArgumentCaptor.forClass(List.class);
+        verify(tagRepository).saveAll(saved.capture());
+        assertEquals(List.of(new JournalEntryTag(10, 3, "family")), saved.getValue());
+    }
+}
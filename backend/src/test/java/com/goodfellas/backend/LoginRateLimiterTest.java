@@ -0,0 +1,131 @@
+package com.goodfellas.backend;
+
+import com.goodfellas.backend.security.LoginRateLimiter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LoginRateLimiterTest
+{
+    private final AtomicLong now = new AtomicLong(1_000_000_000L);
+    private LoginRateLimiter limiter;
+
+    @BeforeEach
+    void setUp()
+    {
+        // 60s window, 3 failures per username, 5 per IP, at most 2 tracked keys per dimension
+        limiter = new LoginRateLimiter(Duration.ofSeconds(60), 3, 5, 2, now::get);
+    }
+
+    @Test
+    void unknownKeys_AreAllowed()
+    {
+        assertEquals(0, limiter.retryAfterSeconds("alice", "10.0.0.1"));
+        assertEquals(0, limiter.retryAfterSeconds(null, null));
+    }
+
+    @Test
+    void failuresAboveLimit_BlockUsernameWithRetryAfter()
+    {
+        for (int i = 0; i < 3; i++)
+            limiter.recordFailure("alice", "10.0.0.1");
+
+        long retryAfter = limiter.retryAfterSeconds("alice", "10.0.0.2");
+        assertTrue(retryAfter > 0 && retryAfter <= 120);
+        assertEquals(0, limiter.retryAfterSeconds("bob", "10.0.0.2"));
+    }
+
+    @Test
+    void failuresAboveIpLimit_BlockEveryUsernameFromThatIp()
+    {
+        for (int i = 0; i < 5; i++)
+            limiter.recordFailure("user" + (i % 2), "10.0.0.1");
+
+        assertTrue(limiter.retryAfterSeconds("someoneElse", "10.0.0.1") > 0);
+    }
+
+    @Test
+    void blockExpires_AfterSlidingWindowPasses()
+    {
+        for (int i = 0; i < 3; i++)
+            limiter.recordFailure("alice", "10.0.0.1");
+
+        now.addAndGet(limiter.retryAfterSeconds("alice", null) * 1000);
+        assertEquals(0, limiter.retryAfterSeconds("alice", null));
+    }
+
+    @Test
+    void success_ResetsUsernameCounter()
+    {
+        for (int i = 0; i < 3; i++)
+            limiter.recordFailure("alice", null);
+
+        limiter.recordSuccess("alice");
+        assertEquals(0, limiter.retryAfterSeconds("alice", null));
+    }
+
+    @Test
+    void idleKeys_AreSweptWhenFull()
+    {
+        limiter.recordFailure("alice", null);
+        limiter.recordFailure("bob", null);
+        now.addAndGet(Duration.ofMinutes(5).toMillis());
+
+        for (int i = 0; i < 3; i++)
+            limiter.recordFailure("carol", null);
+        assertTrue(limiter.retryAfterSeconds("carol", null) > 0);
+    }
+
+    @Test
+    void fullMap_EvictsTheKeyThatFailedLongestAgoAndKeepsCounting()
+    {
+        limiter.recordFailure("alice", null);
+        limiter.recordFailure("bob", null);
+        limiter.recordFailure("bob", null);
+
+        // No time passes, so nothing is idle; new keys must still be counted
+        for (int i = 0; i < 3; i++)
+            limiter.recordFailure("carol", null);
+
+        assertTrue(limiter.retryAfterSeconds("carol", null) > 0);
+        limiter.recordFailure("bob", null);
+        assertTrue(limiter.retryAfterSeconds("bob", null) > 0);
+    }
+
+    @Test
+    void sweep_DropsIdleKeysOnly()
+    {
+        for (int i = 0; i < 3; i++)
+            limiter.recordFailure("alice", null);
+        now.addAndGet(Duration.ofMinutes(5).toMillis());
+        for (int i = 0; i < 3; i++)
+            limiter.recordFailure("bob", null);
+
+        limiter.sweep();
+
+        assertEquals(0, limiter.retryAfterSeconds("alice", null));
+        assertTrue(limiter.retryAfterSeconds("bob", null) > 0);
+    }
+
+    @Test
+    void stripedLimiter_KeepsCountingRecentKeysUnderAFloodOfNewOnes()
+    {
+        // 4096 keys are split over four stripes of 1024
+        LoginRateLimiter large = new LoginRateLimiter(Duration.ofSeconds(60), 3, 5, 4096, now::get);
+        for (int i = 0; i < 3; i++)
+            large.recordFailure("victim", null);
+        for (int i = 0; i < 20_000; i++)
+            large.recordFailure("spray" + i, null);
+        for (int i = 0; i < 3; i++)
+            large.recordFailure("victim", null);
+
+        assertTrue(large.retryAfterSeconds("victim", null) > 0);
+        large.recordSuccess("victim");
+        large.recordSuccess("never-failed");
+        assertEquals(0, large.retryAfterSeconds("victim", null));
+    }
+}
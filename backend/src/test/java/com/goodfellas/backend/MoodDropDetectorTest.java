@@ -0,0 +1,127 @@
+package com.goodfellas.backend;
+
+import com.goodfellas.backend.event.MoodSubmittedEvent;
+import com.goodfellas.backend.model.MoodAlert;
+import com.goodfellas.backend.model.MoodAlertType;
+import com.goodfellas.backend.model.MoodDetectorState;
+import com.goodfellas.backend.repository.MoodAlertRepository;
+import com.goodfellas.backend.repository.MoodDetectorStateRepository;
+import com.goodfellas.backend.repository.PatientRepository;
+import com.goodfellas.backend.service.MoodDropDetector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class MoodDropDetectorTest
+{
+    @Mock
+    private MoodDetectorStateRepository stateRepository;
+    @Mock
+    private MoodAlertRepository moodAlertRepository;
+    @Mock
+    private PatientRepository patientRepository;
+
+    private MoodDropDetector detector;
+    private LocalDate day = LocalDate.of(2025, 1, 1);
+
+    @BeforeEach
+    void setUp()
+    {
+        detector = new MoodDropDetector(stateRepository, moodAlertRepository, patientRepository, 0.1, 3, 0.5, 4, 5);
+        lenient().when(stateRepository.findById(any())).thenReturn(Optional.empty());
+    }
+
+    private void submit(int... values)
+    {
+        for (int value : values)
+        {
+            detector.onMoodSubmitted(new MoodSubmittedEvent(0, 1, day, value));
+            day = day.plusDays(1);
+        }
+    }
+
+    private List<MoodAlertType> alerts()
+    {
+        ArgumentCaptor<MoodAlert> captor = ArgumentCaptor.forClass(MoodAlert.class);
+        verify(moodAlertRepository, atLeast(0)).save(captor.capture());
+        return captor.getAllValues().stream().map(MoodAlert::getType).toList();
+    }
+
+    @Test
+    void stableMood_RaisesNoAlert()
+    {
+        submit(7, 8, 7, 7, 8, 7, 6, 7, 8, 7);
+
+        assertTrue(alerts().isEmpty());
+    }
+
+    @Test
+    void sharpDrop_RaisesAlertAfterWarmup()
+    {
+        submit(8, 8, 8, 8, 8, 8, 3);
+
+        assertEquals(List.of(MoodAlertType.SHARP_DROP), alerts());
+    }
+
+    @Test
+    void dropDuringWarmup_IsIgnored()
+    {
+        submit(8, 8, 3);
+
+        assertTrue(alerts().isEmpty());
+    }
+
+    @Test
+    void gradualDecline_RaisesSustainedDropOnce()
+    {
+        submit(8, 8, 8, 8, 8, 8, 7, 6, 6, 6);
+
+        assertEquals(List.of(MoodAlertType.SUSTAINED_DROP), alerts());
+    }
+
+    @Test
+    void checkpoint_SavesOnlyChangedStates()
+    {
+        submit(8, 7);
+        detector.checkpoint();
+        detector.checkpoint();
+
+        verify(stateRepository, times(1)).saveAll(argThat(states -> {
+            MoodDetectorState state = states.iterator().next();
+            return state.getPatientId() == 1 && state.getObservations() == 2;
+        }));
+    }
+
+    @Test
+    void shutdown_SavesTheLastChangesAndStopsCheckpoints()
+    {
+        submit(8);
+        detector.shutdown();
+        submit(7);
+        detector.checkpoint();
+
+        verify(stateRepository, times(1)).saveAll(argThat(states -> states.iterator().next().getObservations() == 1));
+    }
+
+    @Test
+    void restore_ContinuesFromCheckpoint()
+    {
+        when(stateRepository.findById(1)).thenReturn(Optional.of(new MoodDetectorState(1, 8.0, 0, 30)));
+
+        submit(4);
+
+        assertEquals(List.of(MoodAlertType.SHARP_DROP), alerts());
+    }
+}
@@ -0,0 +1,104 @@
+package com.goodfellas.backend;
+
+import com.goodfellas.backend.dto.MoodImportResultDTO;
+import com.goodfellas.backend.dto.MoodImportResultDTO.Status;
+import com.goodfellas.backend.dto.MoodImportRowDTO;
+import com.goodfellas.backend.event.MoodsImportedEvent;
+import com.goodfellas.backend.repository.MoodJdbcRepository;
+import com.goodfellas.backend.repository.PatientRepository;
+import com.goodfellas.backend.service.MoodImportService;
+import com.goodfellas.backend.service.MoodStatsService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.security.access.AccessDeniedException;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class MoodImportServiceTest
+{
+    @Mock
+    private MoodJdbcRepository moodJdbcRepository;
+    @Mock
+    private PatientRepository patientRepository;
+    @Mock
+    private MoodStatsService moodStatsService;
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    private MoodImportService moodImportService;
+    private final LocalDate day = LocalDate.of(2025, 1, 1);
+
+    @BeforeEach
+    void setUp()
+    {
+        moodImportService = new MoodImportService(moodJdbcRepository, patientRepository, moodStatsService, eventPublisher, 100);
+    }
+
+    @Test
+    void importMoods_ReportsEveryRow()
+    {
+        List<MoodImportRowDTO> rows = List.of(
+                new MoodImportRowDTO(day, 6),
+                new MoodImportRowDTO(day.plusDays(1), 11),
+                new MoodImportRowDTO(day, 7),
+                new MoodImportRowDTO(day.plusDays(2), 5),
+                new MoodImportRowDTO(LocalDate.now().plusDays(1), 5),
+                new MoodImportRowDTO(null, 5));
+        // day + 2 already exists in the database
+        when(moodJdbcRepository.insertIgnoringDuplicates(eq(1), any(), any(), eq(2))).thenReturn(new int[]{1, 0});
+
+        MoodImportResultDTO result = moodImportService.importMoods(1, rows);
+
+        assertEquals(List.of(Status.IMPORTED, Status.INVALID, Status.DUPLICATE, Status.DUPLICATE, Status.INVALID, Status.INVALID),
+                result.getRows().stream().map(MoodImportResultDTO.Row::getStatus).toList());
+        assertEquals(1, result.getImported());
+        assertEquals(2, result.getDuplicates());
+        assertEquals(3, result.getInvalid());
+        verify(moodStatsService).rebuild(1);
+        verify(eventPublisher).publishEvent(new MoodsImportedEvent(1, false));
+    }
+
+    @Test
+    void importMoods_NothingInserted_SkipsStatsRebuild()
+    {
+        when(moodJdbcRepository.insertIgnoringDuplicates(eq(1), any(), any(), eq(1))).thenReturn(new int[]{0});
+
+        MoodImportResultDTO result = moodImportService.importMoods(1, List.of(new MoodImportRowDTO(day, 6)));
+
+        assertEquals(1, result.getDuplicates());
+        verifyNoInteractions(moodStatsService, eventPublisher);
+    }
+
+    @Test
+    void importMoods_TooManyRows()
+    {
+        List<MoodImportRowDTO> rows = new ArrayList<>(Collections.nCopies(101, new MoodImportRowDTO(day, 5)));
+
+        assertThrows(RuntimeException.class, () -> moodImportService.importMoods(1, rows));
+        verifyNoInteractions(moodJdbcRepository);
+    }
+
+    @Test
+    void importForAssignedPatient_RejectsOtherPsychologists()
+    {
+        when(patientRepository.existsByIdAndPsychologistId(1, 2)).thenReturn(false);
+
+        assertThrows(AccessDeniedException.class,
+                () -> moodImportService.importForAssignedPatient(2, 1, List.of(new MoodImportRowDTO(day, 5))));
+        verify(moodJdbcRepository, never()).insertIgnoringDuplicates(anyInt(), any(), any(), anyInt());
+    }
+}
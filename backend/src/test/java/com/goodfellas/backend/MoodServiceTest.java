@@ -1,11 +1,16 @@
 package com.goodfellas.backend;
+import com.goodfellas.backend.dto.CursorPageDTO;
+import com.goodfellas.backend.dto.KeysetCursor;
+import com.goodfellas.backend.dto.MoodCalendarDTO;
 import com.goodfellas.backend.dto.MoodDTO;
+import com.goodfellas.backend.event.MoodSubmittedEvent;
 import com.goodfellas.backend.model.Mood;
-import com.goodfellas.backend.model.Patient;
+import com.goodfellas.backend.model.MoodSeries;
+import com.goodfellas.backend.repository.MoodJdbcRepository;
 import com.goodfellas.backend.repository.MoodRepository;
-import com.goodfellas.backend.repository.PatientRepository;
 import com.goodfellas.backend.service.MoodService;
-import org.junit.jupiter.api.BeforeEach;
+import com.goodfellas.backend.service.MoodStatsService;
+import com.goodfellas.backend.service.TodayMoodCache;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
@@ -13,6 +18,8 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 
 import java.time.LocalDate;
 import java.util.List;
@@ -20,6 +27,8 @@ import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -28,21 +37,16 @@ class MoodServiceTest
     @Mock
     private MoodRepository moodRepository;
     @Mock
-    private PatientRepository patientRepository;
+    private MoodStatsService moodStatsService;
+    @Mock
+    private MoodJdbcRepository moodJdbcRepository;
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+    @Mock
+    private TodayMoodCache todayMoodCache;
     @InjectMocks
     private MoodService moodService;
 
-    private final String USERNAME = "testPatient";
-    private Patient testPatient;
-
-    @BeforeEach
-    void setUp()
-    {
-        testPatient = new Patient();
-        testPatient.setId(1);
-        testPatient.setUsername(USERNAME);
-    }
-
     @Nested
     @DisplayName("submitMood Tests")
     class SubmitMoodTests
@@ -53,26 +57,28 @@ class MoodServiceTest
         {
             int moodValue = 7;
             LocalDate today = LocalDate.now();
-            when(moodRepository.findByPatient_UsernameAndDate(USERNAME, today)).thenReturn(Optional.empty());
-            when(patientRepository.findByUsername(USERNAME)).thenReturn(Optional.of(testPatient));
-            moodService.submitMood(USERNAME, moodValue);
-            verify(moodRepository, times(1)).save(any(Mood.class));
+            when(todayMoodCache.get(1)).thenReturn(null);
+            when(moodJdbcRepository.insertIfAbsent(1, today, moodValue)).thenReturn(42);
+            moodService.submitMood(1, moodValue);
+            verify(moodJdbcRepository, times(1)).insertIfAbsent(1, today, moodValue);
+            verify(moodStatsService).record(1, today, moodValue);
+            verify(eventPublisher).publishEvent(new MoodSubmittedEvent(42, 1, today, moodValue));
         }
 
         @Test
         @DisplayName("Failure: Value below range (0)")
         void submitMood_ValueTooLow()
         {
-            RuntimeException ex = assertThrows(RuntimeException.class, () -> moodService.submitMood(USERNAME, 0));
+            RuntimeException ex = assertThrows(RuntimeException.class, () -> moodService.submitMood(1, 0));
             assertTrue(ex.getMessage().contains("Mood value must be between 1 and 10"));
-            verify(moodRepository, never()).save(any());
+            verifyNoInteractions(moodJdbcRepository);
         }
 
         @Test
         @DisplayName("Failure: Value above range (11)")
         void submitMood_ValueTooHigh()
         {
-            RuntimeException ex = assertThrows(RuntimeException.class, () -> moodService.submitMood(USERNAME, 11));
+            RuntimeException ex = assertThrows(RuntimeException.class, () -> moodService.submitMood(1, 11));
             assertTrue(ex.getMessage().contains("Mood value must be between 1 and 10"));
         }
 
@@ -80,54 +86,156 @@ class MoodServiceTest
         @DisplayName("Failure: Already submitted today")
         void submitMood_AlreadySubmittedToday()
         {
-            LocalDate today = LocalDate.now();
-            when(moodRepository.findByPatient_UsernameAndDate(USERNAME, today)).thenReturn(Optional.of(new Mood()));
-            RuntimeException ex = assertThrows(RuntimeException.class, () -> moodService.submitMood(USERNAME, 5));
+            when(todayMoodCache.get(1)).thenReturn(null);
+            when(moodJdbcRepository.insertIfAbsent(1, LocalDate.now(), 5)).thenReturn(0);
+            RuntimeException ex = assertThrows(RuntimeException.class, () -> moodService.submitMood(1, 5));
             assertTrue(ex.getMessage().contains("already submitted your mood for today"));
+            verifyNoInteractions(moodStatsService, eventPublisher);
         }
 
         @Test
-        @DisplayName("Failure: Patient not found")
-        void submitMood_PatientNotFound()
+        @DisplayName("Failure: Already submitted today, answered from the cache")
+        void submitMood_AlreadySubmittedTodayCached()
         {
-            when(moodRepository.findByPatient_UsernameAndDate(USERNAME, LocalDate.now())).thenReturn(Optional.empty());
-            when(patientRepository.findByUsername(USERNAME)).thenReturn(Optional.empty());
-            RuntimeException ex = assertThrows(RuntimeException.class, () -> moodService.submitMood(USERNAME, 5));
-            assertEquals("Patient not found", ex.getMessage());
+            when(todayMoodCache.get(1)).thenReturn(Optional.of(new MoodDTO()));
+            RuntimeException ex = assertThrows(RuntimeException.class, () -> moodService.submitMood(1, 5));
+            assertTrue(ex.getMessage().contains("already submitted your mood for today"));
+            verifyNoInteractions(moodJdbcRepository);
         }
     }
 
     @Nested
-    @DisplayName("getMyMoodHistory Tests")
+    @DisplayName("getMoodHistory Tests")
     class GetMoodHistoryTests
+    {
+        private Mood mood(int id, int value, LocalDate date)
+        {
+            Mood mood = new Mood();
+            mood.setId(id);
+            mood.setValue(value);
+            mood.setDate(date);
+            return mood;
+        }
+
+        @Test
+        @DisplayName("Success: Last page has no cursor")
+        void getMoodHistory_LastPage()
+        {
+            LocalDate today = LocalDate.now();
+            when(moodRepository.findPage(eq(1), eq(LocalDate.EPOCH), eq(today), eq(Integer.MAX_VALUE), any(Limit.class)))
+                    .thenReturn(List.of(mood(2, 4, today), mood(1, 8, today.minusDays(1))));
+
+            CursorPageDTO<MoodDTO> page = moodService.getMoodHistory(1, null, null, 10, null);
+
+            assertEquals(2, page.getItems().size());
+            assertEquals(4, page.getItems().get(0).getValue());
+            assertEquals(8, page.getItems().get(1).getValue());
+            assertFalse(page.isHasMore());
+            assertNull(page.getNextCursor());
+        }
+
+        @Test
+        @DisplayName("Success: Extra row sets hasMore and the cursor points at the last returned row")
+        void getMoodHistory_HasMore()
+        {
+            LocalDate today = LocalDate.now();
+            when(moodRepository.findPage(anyInt(), any(), any(), anyInt(), eq(Limit.of(3))))
+                    .thenReturn(List.of(mood(3, 5, today), mood(2, 6, today.minusDays(1)), mood(1, 7, today.minusDays(2))));
+
+            CursorPageDTO<MoodDTO> page = moodService.getMoodHistory(1, null, null, 2, null);
+
+            assertEquals(2, page.getItems().size());
+            assertTrue(page.isHasMore());
+            assertEquals(new KeysetCursor(today.minusDays(1), 2), KeysetCursor.decode(page.getNextCursor()));
+        }
+
+        @Test
+        @DisplayName("Success: Cursor continues after the previous page")
+        void getMoodHistory_FollowsCursor()
+        {
+            LocalDate day = LocalDate.now().minusDays(5);
+            String cursor = new KeysetCursor(day, 42).encode();
+            when(moodRepository.findPage(eq(1), any(), eq(day), eq(42), any(Limit.class))).thenReturn(List.of());
+
+            CursorPageDTO<MoodDTO> page = moodService.getMoodHistory(1, null, null, null, cursor);
+
+            assertTrue(page.getItems().isEmpty());
+            verify(moodRepository).findPage(eq(1), any(), eq(day), eq(42), eq(Limit.of(31)));
+        }
+
+        @Test
+        @DisplayName("Failure: Invalid cursor")
+        void getMoodHistory_InvalidCursor()
+        {
+            assertThrows(RuntimeException.class, () -> moodService.getMoodHistory(1, null, null, null, "not-a-cursor"));
+            verifyNoInteractions(moodRepository);
+        }
+
+        @Test
+        @DisplayName("Failure: from after to")
+        void getMoodHistory_InvalidRange()
+        {
+            LocalDate today = LocalDate.now();
+            assertThrows(RuntimeException.class, () -> moodService.getMoodHistory(1, today, today.minusDays(1), null, null));
+        }
+    }
+
+    @Test
+    @DisplayName("exportCsv: Writes one line per day, oldest first")
+    void exportCsv_WritesSeries()
+    {
+        LocalDate day = LocalDate.of(2025, 3, 1);
+        when(moodJdbcRepository.findSeries(1)).thenReturn(MoodSeries.builder(2).add(day, 6).add(day.plusDays(2), 9).build());
+
+        assertEquals("date,value\n2025-03-01,6\n2025-03-03,9\n", moodService.exportCsv(1, null, null));
+    }
+
+    @Test
+    @DisplayName("getCalendar: Packs one byte per day and sets the presence bits")
+    void getCalendar_PacksYear()
+    {
+        LocalDate jan1 = LocalDate.of(2024, 1, 1);
+        when(moodJdbcRepository.findSeries(1, jan1, LocalDate.of(2024, 12, 31)))
+                .thenReturn(MoodSeries.builder(3).add(jan1, 4).add(jan1.plusDays(9), 7).add(LocalDate.of(2024, 12, 31), 10).build());
+
+        MoodCalendarDTO calendar = moodService.getCalendar(1, 2024);
+
+        assertEquals(366, calendar.getDays());
+        assertEquals(3, calendar.getCount());
+        assertEquals(366, calendar.getValues().length);
+        assertEquals(46, calendar.getPresent().length);
+        assertEquals(4, calendar.getValues()[0]);
+        assertEquals(7, calendar.getValues()[9]);
+        assertEquals(10, calendar.getValues()[365]);
+        assertEquals(0, calendar.getValues()[1]);
+        assertEquals(0b1, calendar.getPresent()[0]);
+        assertEquals(0b10, calendar.getPresent()[1]);
+        assertEquals(0b100000, calendar.getPresent()[45]);
+    }
+
+    @Nested
+    @DisplayName("getTodayMood Tests")
+    class GetTodayMoodTests
     {
         @Test
-        @DisplayName("Success: Retrieve list of moods")
-        void getMyMoodHistory_Success()
+        @DisplayName("Cache hit: No query")
+        void getTodayMood_Cached()
         {
-            Mood mood1 = new Mood();
-            mood1.setId(1);
-            mood1.setValue(8);
-            mood1.setDate(LocalDate.now().minusDays(1));
-            Mood mood2 = new Mood();
-            mood2.setId(2);
-            mood2.setValue(4);
-            mood2.setDate(LocalDate.now());
-            when(moodRepository.findByPatient_Username(USERNAME)).thenReturn(List.of(mood1, mood2));
-            List<MoodDTO> history = moodService.getMyMoodHistory(USERNAME);
-            assertEquals(2, history.size());
-            assertEquals(8, history.get(0).getValue());
-            assertEquals(4, history.get(1).getValue());
-            verify(moodRepository, times(1)).findByPatient_Username(USERNAME);
+            MoodDTO mood = new MoodDTO();
+            when(todayMoodCache.get(1)).thenReturn(Optional.of(mood));
+            assertSame(mood, moodService.getTodayMood(1).orElseThrow());
+            verifyNoInteractions(moodRepository);
         }
 
         @Test
-        @DisplayName("Success: Return empty list if no history")
-        void getMyMoodHistory_Empty()
+        @DisplayName("Cache miss: Loads and remembers that nothing was submitted")
+        void getTodayMood_MissCachesAbsence()
         {
-            when(moodRepository.findByPatient_Username(USERNAME)).thenReturn(List.of());
-            List<MoodDTO> history = moodService.getMyMoodHistory(USERNAME);
-            assertTrue(history.isEmpty());
+            LocalDate today = LocalDate.now();
+            when(todayMoodCache.get(1)).thenReturn(null);
+            when(moodRepository.findByPatient_IdAndDate(1, today)).thenReturn(Optional.empty());
+            assertTrue(moodService.getTodayMood(1).isEmpty());
+            verify(todayMoodCache).put(1, today, null);
         }
     }
 }
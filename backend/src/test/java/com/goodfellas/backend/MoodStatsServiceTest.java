@@ -0,0 +1,191 @@
+package com.goodfellas.backend;
+
+import com.goodfellas.backend.dto.MoodStatsDTO;
+import com.goodfellas.backend.model.MoodSeries;
+import com.goodfellas.backend.model.MoodStats;
+import com.goodfellas.backend.repository.MoodJdbcRepository;
+import com.goodfellas.backend.repository.MoodStatsRepository;
+import com.goodfellas.backend.repository.PatientRepository;
+import com.goodfellas.backend.service.MoodStatsService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class MoodStatsServiceTest
+{
+    @Mock
+    private MoodStatsRepository moodStatsRepository;
+    @Mock
+    private MoodJdbcRepository moodJdbcRepository;
+    @Mock
+    private PatientRepository patientRepository;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private MoodStatsService moodStatsService;
+    private final LocalDate today = LocalDate.now();
+
+    @BeforeEach
+    void setUp()
+    {
+        moodStatsService = new MoodStatsService(moodStatsRepository, moodJdbcRepository, patientRepository, new TransactionTemplate(transactionManager));
+    }
+
+    private MoodSeries series(LocalDate firstDay, int... values)
+    {
+        MoodSeries.Builder series = MoodSeries.builder(values.length);
+        for (int i = 0; i < values.length; i++)
+            series.add(firstDay.plusDays(i), values[i]);
+        return series.build();
+    }
+
+    private MoodStats recordAll(int... valuesOldestFirst)
+    {
+        MoodStats stats = new MoodStats(1);
+        when(moodStatsRepository.findById(1)).thenReturn(Optional.of(stats));
+        for (int i = 0; i < valuesOldestFirst.length; i++)
+        {
+            if (valuesOldestFirst[i] > 0)
+                moodStatsService.record(1, today.minusDays(valuesOldestFirst.length - 1 - i), valuesOldestFirst[i]);
+        }
+        return stats;
+    }
+
+    @Test
+    void record_UpdatesWindowsAndStreaks()
+    {
+        // 10 days of history with one missing day four days ago
+        recordAll(2, 2, 2, 2, 2, 4, 0, 6, 8, 10);
+
+        MoodStatsDTO dto = moodStatsService.getStats(1);
+
+        assertEquals(9, dto.getCount());
+        assertEquals(38.0 / 9, dto.getAverage(), 1e-9);
+        assertEquals(2, dto.getMin());
+        assertEquals(10, dto.getMax());
+        assertEquals(3, dto.getCurrentStreak());
+        assertEquals(6, dto.getLongestStreak());
+        assertEquals(today, dto.getLastDate());
+
+        assertEquals(6, dto.getLast7Days().getCount());
+        assertEquals(32.0 / 6, dto.getLast7Days().getAverage(), 1e-9);
+        assertEquals(9, dto.getLast30Days().getCount());
+        assertEquals(9, dto.getLast90Days().getCount());
+    }
+
+    @Test
+    void record_GapLongerThanWindowClearsOldDays()
+    {
+        MoodStats stats = new MoodStats(1);
+        when(moodStatsRepository.findById(1)).thenReturn(Optional.of(stats));
+        moodStatsService.record(1, today.minusDays(200), 7);
+        moodStatsService.record(1, today, 3);
+
+        MoodStatsDTO dto = moodStatsService.getStats(1);
+
+        assertEquals(2, dto.getCount());
+        assertEquals(1, dto.getLast90Days().getCount());
+        assertEquals(3, dto.getLast90Days().getMin());
+        assertEquals(1, dto.getCurrentStreak());
+    }
+
+    @Test
+    void getStats_StreakEndsWhenYesterdayWasMissed()
+    {
+        MoodStats stats = new MoodStats(1);
+        when(moodStatsRepository.findById(1)).thenReturn(Optional.of(stats));
+        moodStatsService.record(1, today.minusDays(3), 5);
+        moodStatsService.record(1, today.minusDays(2), 5);
+
+        MoodStatsDTO dto = moodStatsService.getStats(1);
+
+        assertEquals(0, dto.getCurrentStreak());
+        assertEquals(2, dto.getLongestStreak());
+    }
+
+    @Test
+    void getStats_WithoutStoredStatsComputesWithoutSaving()
+    {
+        when(moodStatsRepository.findById(1)).thenReturn(Optional.empty());
+        when(moodJdbcRepository.findSeries(1)).thenReturn(series(today.minusDays(1), 4, 6));
+
+        MoodStatsDTO dto = moodStatsService.getStats(1);
+
+        assertEquals(2, dto.getCount());
+        assertEquals(2, dto.getCurrentStreak());
+        verify(moodStatsRepository, never()).save(any());
+    }
+
+    @Test
+    void record_FirstSubmissionBuildsStatsFromExistingRows()
+    {
+        when(moodStatsRepository.findById(1)).thenReturn(Optional.empty());
+        when(moodJdbcRepository.findSeries(1)).thenReturn(series(today.minusDays(1), 4, 6));
+        List<MoodStats> saved = new ArrayList<>();
+        when(moodStatsRepository.save(any())).thenAnswer(invocation -> {
+            saved.add(invocation.getArgument(0));
+            return invocation.getArgument(0);
+        });
+
+        moodStatsService.record(1, today, 6);
+
+        assertEquals(1, saved.size());
+        assertEquals(2, saved.get(0).getCount());
+        assertEquals(10, saved.get(0).getTotal());
+        assertEquals(2, saved.get(0).getCurrentStreak());
+    }
+
+    @Test
+    void rebuild_ReportsAndRepairsDrift()
+    {
+        MoodStats stored = new MoodStats(1);
+        stored.setCount(99);
+        when(moodStatsRepository.findById(1)).thenReturn(Optional.of(stored));
+        when(moodJdbcRepository.findSeries(1)).thenReturn(series(today, 4));
+
+        assertTrue(moodStatsService.rebuild(1));
+        verify(moodStatsRepository).save(argThat(stats -> stats.getCount() == 1));
+    }
+
+    @Test
+    void rebuild_LeavesMatchingStatsAlone()
+    {
+        when(moodJdbcRepository.findSeries(1)).thenReturn(series(today, 4));
+        MoodStats stored = new MoodStats(1);
+        when(moodStatsRepository.findById(1)).thenReturn(Optional.of(stored));
+        moodStatsService.record(1, today, 4);
+        clearInvocations(moodStatsRepository);
+
+        assertFalse(moodStatsService.rebuild(1));
+        verify(moodStatsRepository, never()).save(any());
+    }
+
+    @Test
+    void rebuildAll_RunsEachPatientInItsOwnTransactionAndSkipsFailures()
+    {
+        when(patientRepository.findAllIds()).thenReturn(List.of(1, 2));
+        when(moodJdbcRepository.findSeries(1)).thenThrow(new IllegalStateException("broken row"));
+        when(moodJdbcRepository.findSeries(2)).thenReturn(series(today, 4));
+
+        moodStatsService.rebuildAll();
+
+        verify(moodStatsRepository).save(argThat(stats -> stats.getPatientId() == 2));
+        verify(transactionManager, times(2)).getTransaction(any());
+        verify(transactionManager).rollback(any());
+        verify(transactionManager).commit(any());
+    }
+}
@@ -0,0 +1,103 @@
+package com.goodfellas.backend;
+
+import com.goodfellas.backend.model.Patient;
+import com.goodfellas.backend.repository.MoodJdbcRepository;
+import com.goodfellas.backend.repository.MoodRepository;
+import com.goodfellas.backend.repository.MoodStatsRepository;
+import com.goodfellas.backend.repository.PatientRepository;
+import com.goodfellas.backend.service.MoodService;
+import com.goodfellas.backend.service.MoodStatsService;
+import com.goodfellas.backend.service.TodayMoodCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Fires parallel submissions for the same patient against an in-memory database running in PostgreSQL mode and
+ * checks that the unique constraint lets exactly one of them through.
+ */
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:mood-submission;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;NON_KEYWORDS=VALUE",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.hibernate.ddl-auto=create-drop"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({MoodService.class, MoodStatsService.class, MoodJdbcRepository.class, TodayMoodCache.class, SimpleMeterRegistry.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class MoodSubmissionConcurrencyTest
+{
+    private static final int THREADS = 8;
+
+    @Autowired
+    private MoodService moodService;
+    @Autowired
+    private MoodRepository moodRepository;
+    @Autowired
+    private MoodStatsRepository moodStatsRepository;
+    @Autowired
+    private PatientRepository patientRepository;
+
+    @Test
+    void parallelSubmissions_OnlyOneSucceeds() throws Exception
+    {
+        Patient patient = new Patient();
+        patient.setUsername("racer");
+        patient.setPassword("x");
+        patient.setFirstName("Race");
+        patient.setLastName("Condition");
+        int patientId = patientRepository.save(patient).getId();
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger succeeded = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        List<Future<?>> futures = new ArrayList<>();
+        try
+        {
+            for (int i = 0; i < THREADS; i++)
+            {
+                int value = i + 1;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    try
+                    {
+                        moodService.submitMood(patientId, value);
+                        succeeded.incrementAndGet();
+                    }
+                    catch (RuntimeException e)
+                    {
+                        assertTrue(e.getMessage().contains("already submitted"), e.getMessage());
+                        rejected.incrementAndGet();
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures)
+                future.get(30, TimeUnit.SECONDS);
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+
+        assertEquals(1, succeeded.get());
+        assertEquals(THREADS - 1, rejected.get());
+        assertEquals(1, moodRepository.count());
+        assertEquals(1, moodStatsRepository.findById(patientId).orElseThrow().getCount());
+    }
+}
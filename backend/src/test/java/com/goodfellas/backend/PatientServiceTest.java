@@ -0,0 +1,100 @@
+package com.goodfellas.backend;
+
+import com.goodfellas.backend.dto.PatientMoodOverviewDTO;
+import com.goodfellas.backend.event.PatientAssignedEvent;
+import com.goodfellas.backend.model.Patient;
+import com.goodfellas.backend.model.Psychologist;
+import com.goodfellas.backend.repository.PatientRepository;
+import com.goodfellas.backend.repository.PsychologistRepository;
+import com.goodfellas.backend.service.PatientService;
+import com.goodfellas.backend.service.SharedJournalSync;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PatientServiceTest {
+    @Mock
+    private PatientRepository patientRepository;
+    @Mock
+    private PsychologistRepository psychologistRepository;
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+    @Mock
+    private SharedJournalSync sharedJournalSync;
+
+    private PatientService patientService;
+
+    @BeforeEach
+    void setUp() {
+        patientService = new PatientService(patientRepository, psychologistRepository, eventPublisher, sharedJournalSync,
+                new SimpleMeterRegistry(), 100, Duration.ofSeconds(30));
+    }
+
+    private PatientMoodOverviewDTO overview(int id, Double current, Double previous) {
+        return new PatientMoodOverviewDTO(id, "First", "Last", "patient" + id, 5, LocalDate.now(), current, previous);
+    }
+
+    @Test
+    void moodOverview_ComputesTrendFromWeeklyAverages() {
+        when(patientRepository.findMoodOverview(eq(7), any(), any())).thenReturn(new ArrayList<>(List.of(
+                overview(1, 8.0, 5.0),
+                overview(2, 4.0, 6.0),
+                overview(3, 6.2, 6.0),
+                overview(4, 6.0, null))));
+
+        List<PatientMoodOverviewDTO> result = patientService.getAssignedPatientsMoodOverview(7);
+
+        assertEquals("UP", result.get(0).getTrend());
+        assertEquals("DOWN", result.get(1).getTrend());
+        assertEquals("STABLE", result.get(2).getTrend());
+        assertNull(result.get(3).getTrend());
+    }
+
+    @Test
+    void moodOverview_IsServedFromCacheOnRepeatedCalls() {
+        when(patientRepository.findMoodOverview(eq(7), any(), any())).thenReturn(new ArrayList<>(List.of(overview(1, 8.0, 5.0))));
+
+        patientService.getAssignedPatientsMoodOverview(7);
+        patientService.getAssignedPatientsMoodOverview(7);
+
+        verify(patientRepository, times(1)).findMoodOverview(eq(7), any(), any());
+
+        patientService.onPatientAssigned(new PatientAssignedEvent(3, 7));
+        patientService.getAssignedPatientsMoodOverview(7);
+        verify(patientRepository, times(2)).findMoodOverview(eq(7), any(), any());
+    }
+
+    @Test
+    void assignPatient_ResyncsSharedEntriesOfNewlyAssignedPatient() {
+        Psychologist psychologist = new Psychologist();
+        psychologist.setId(7);
+        psychologist.setUsername("doc");
+        Patient patient = new Patient();
+        patient.setId(3);
+        when(psychologistRepository.findByUsername("doc")).thenReturn(Optional.of(psychologist));
+        when(patientRepository.findById(3)).thenReturn(Optional.of(patient));
+
+        patientService.assignPatientToPsychologist("doc", 3);
+        patientService.assignPatientToPsychologist("doc", 3);
+
+        assertSame(psychologist, patient.getPsychologist());
+        verify(sharedJournalSync, times(1)).patientAssigned(3);
+        verify(eventPublisher, times(1)).publishEvent(new PatientAssignedEvent(3, 7));
+    }
+}
@@ -0,0 +1,77 @@
+package com.goodfellas.backend;
+
+import com.goodfellas.backend.dto.CursorPageDTO;
+import com.goodfellas.backend.dto.JournalCursor;
+import com.goodfellas.backend.dto.JournalEntrySummaryDTO;
+import com.goodfellas.backend.repository.JournalEntryRepository;
+import com.goodfellas.backend.repository.PatientRepository;
+import com.goodfellas.backend.service.PsychologistService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+import org.springframework.security.access.AccessDeniedException;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PsychologistServiceTest {
+
+    private static final int PSYCHOLOGIST_ID = 4;
+    private static final LocalDateTime NOW = LocalDateTime.of(2025, 3, 10, 12, 30, 15);
+
+    @Mock
+    private JournalEntryRepository journalEntryRepository;
+    @Mock
+    private PatientRepository patientRepository;
+    @InjectMocks
+    private PsychologistService psychologistService;
+
+    private JournalEntrySummaryDTO summary(int id, LocalDateTime date) {
+        return new JournalEntrySummaryDTO(id, "Entry " + id, null, date, true, 9, "text", 4, 0L);
+    }
+
+    @Test
+    void getSharedJournalEntries_ReturnsCursorOfLastRow() {
+        when(journalEntryRepository.findSharedPage(PSYCHOLOGIST_ID, JournalCursor.FIRST.date(), JournalCursor.FIRST.id(), Limit.of(3)))
+                .thenReturn(List.of(summary(8, NOW), summary(7, NOW), summary(5, NOW.minusDays(1))));
+
+        CursorPageDTO<JournalEntrySummaryDTO> page = psychologistService.getSharedJournalEntries(PSYCHOLOGIST_ID, null, 2, null);
+
+        assertEquals(2, page.getItems().size());
+        assertTrue(page.isHasMore());
+        assertEquals(new JournalCursor(NOW, 7), JournalCursor.decode(page.getNextCursor()));
+    }
+
+    @Test
+    void getSharedJournalEntries_ContinuesFromCursor() {
+        String cursor = new JournalCursor(NOW, 7).encode();
+        when(journalEntryRepository.findSharedPage(PSYCHOLOGIST_ID, NOW, 7, Limit.of(3))).thenReturn(List.of(summary(5, NOW.minusDays(1))));
+
+        CursorPageDTO<JournalEntrySummaryDTO> page = psychologistService.getSharedJournalEntries(PSYCHOLOGIST_ID, null, 2, cursor);
+
+        assertEquals(1, page.getItems().size());
+        assertFalse(page.isHasMore());
+        assertNull(page.getNextCursor());
+    }
+
+    @Test
+    void getSharedJournalEntries_RejectsUnassignedPatient() {
+        when(patientRepository.existsByIdAndPsychologistId(9, PSYCHOLOGIST_ID)).thenReturn(false);
+
+        assertThrows(AccessDeniedException.class, () -> psychologistService.getSharedJournalEntries(PSYCHOLOGIST_ID, 9, null, null));
+        verifyNoInteractions(journalEntryRepository);
+    }
+
+    @Test
+    void getSharedJournalEntries_RejectsMalformedCursor() {
+        RuntimeException ex = assertThrows(RuntimeException.class, () -> psychologistService.getSharedJournalEntries(PSYCHOLOGIST_ID, null, null, "not-a-cursor"));
+        assertEquals("Error: Invalid cursor.", ex.getMessage());
+    }
+}
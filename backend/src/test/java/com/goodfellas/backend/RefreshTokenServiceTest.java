@@ -0,0 +1,108 @@
+package com.goodfellas.backend;
+
+import com.goodfellas.backend.model.RefreshToken;
+import com.goodfellas.backend.repository.RefreshTokenRepository;
+import com.goodfellas.backend.security.AuthenticatedUser;
+import com.goodfellas.backend.security.InvalidRefreshTokenException;
+import com.goodfellas.backend.security.TokenDigest;
+import com.goodfellas.backend.service.RefreshTokenService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RefreshTokenServiceTest
+{
+    @Mock
+    private RefreshTokenRepository refreshTokenRepository;
+
+    private RefreshTokenService refreshTokenService;
+    private final AuthenticatedUser user = new AuthenticatedUser(5, "testPatient", "", "ROLE_PATIENT");
+
+    @BeforeEach
+    void setUp()
+    {
+        refreshTokenService = new RefreshTokenService(refreshTokenRepository, Duration.ofDays(14));
+    }
+
+    @Test
+    void issue_StoresOnlyTheDigest()
+    {
+        String token = refreshTokenService.issue(user);
+
+        ArgumentCaptor<RefreshToken> saved = ArgumentCaptor.forClass(RefreshToken.class);
+        verify(refreshTokenRepository).save(saved.capture());
+        assertEquals(TokenDigest.sha256(token), saved.getValue().getTokenHash());
+        assertEquals(5, saved.getValue().getUserId());
+        assertEquals("ROLE_PATIENT", saved.getValue().getRole());
+    }
+
+    @Test
+    void rotate_ValidToken_ReturnsUserAndNewToken()
+    {
+        String token = "raw-token";
+        RefreshToken stored = storedToken(token, LocalDateTime.now().plusDays(1));
+        when(refreshTokenRepository.findByTokenHash(stored.getTokenHash())).thenReturn(Optional.of(stored));
+        when(refreshTokenRepository.deleteByTokenHash(stored.getTokenHash())).thenReturn(1);
+
+        RefreshTokenService.Rotation rotation = refreshTokenService.rotate(token);
+
+        assertEquals("testPatient", rotation.user().getUsername());
+        assertEquals(5, rotation.user().getId());
+        assertNotEquals(token, rotation.refreshToken());
+        verify(refreshTokenRepository).save(any(RefreshToken.class));
+    }
+
+    @Test
+    void rotate_AlreadyConsumedToken_ThrowsException()
+    {
+        String token = "raw-token";
+        RefreshToken stored = storedToken(token, LocalDateTime.now().plusDays(1));
+        when(refreshTokenRepository.findByTokenHash(stored.getTokenHash())).thenReturn(Optional.of(stored));
+        when(refreshTokenRepository.deleteByTokenHash(stored.getTokenHash())).thenReturn(0);
+
+        assertThrows(InvalidRefreshTokenException.class, () -> refreshTokenService.rotate(token));
+        verify(refreshTokenRepository, never()).save(any());
+    }
+
+    @Test
+    void rotate_ExpiredToken_ThrowsException()
+    {
+        String token = "raw-token";
+        RefreshToken stored = storedToken(token, LocalDateTime.now().minusMinutes(1));
+        when(refreshTokenRepository.findByTokenHash(stored.getTokenHash())).thenReturn(Optional.of(stored));
+        when(refreshTokenRepository.deleteByTokenHash(stored.getTokenHash())).thenReturn(1);
+
+        InvalidRefreshTokenException ex = assertThrows(InvalidRefreshTokenException.class, () -> refreshTokenService.rotate(token));
+        assertTrue(ex.getMessage().contains("expired"));
+    }
+
+    @Test
+    void rotate_UnknownToken_ThrowsException()
+    {
+        when(refreshTokenRepository.findByTokenHash(any())).thenReturn(Optional.empty());
+        assertThrows(InvalidRefreshTokenException.class, () -> refreshTokenService.rotate("unknown"));
+    }
+
+    private RefreshToken storedToken(String token, LocalDateTime expiresAt)
+    {
+        RefreshToken stored = new RefreshToken();
+        stored.setTokenHash(TokenDigest.sha256(token));
+        stored.setUserId(5);
+        stored.setUsername("testPatient");
+        stored.setRole("ROLE_PATIENT");
+        stored.setExpiresAt(expiresAt);
+        return stored;
+    }
+}
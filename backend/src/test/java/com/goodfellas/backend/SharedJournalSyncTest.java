@@ -0,0 +1,194 @@
+package com.goodfellas.backend;
+
+import com.goodfellas.backend.dto.JournalEntrySummaryDTO;
+import com.goodfellas.backend.dto.SharedJournalChangesDTO;
+import com.goodfellas.backend.event.JournalEntryChangedEvent;
+import com.goodfellas.backend.event.JournalEntryDeletedEvent;
+import com.goodfellas.backend.event.PatientAssignedEvent;
+import com.goodfellas.backend.model.JournalEntry;
+import com.goodfellas.backend.model.JournalEntryTombstone;
+import com.goodfellas.backend.model.Patient;
+import com.goodfellas.backend.model.Psychologist;
+import com.goodfellas.backend.repository.JournalEntryRepository;
+import com.goodfellas.backend.repository.JournalEntryTombstoneRepository;
+import com.goodfellas.backend.repository.PatientRepository;
+import com.goodfellas.backend.service.ChangeVersionClock;
+import com.goodfellas.backend.service.SharedJournalSync;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class SharedJournalSyncTest
+{
+    private static final int PSYCHOLOGIST_ID = 2;
+    private static final long START = 1_700_000_000_000L;
+
+    @Mock
+    private JournalEntryRepository journalRepository;
+    @Mock
+    private JournalEntryTombstoneRepository tombstoneRepository;
+    @Mock
+    private PatientRepository patientRepository;
+
+    private final AtomicLong millis = new AtomicLong(START);
+    private ChangeVersionClock versionClock;
+    private SharedJournalSync sync;
+
+    @BeforeEach
+    void setUp()
+    {
+        versionClock = new ChangeVersionClock(millis::get);
+        sync = new SharedJournalSync(journalRepository, tombstoneRepository, patientRepository, versionClock, new SimpleMeterRegistry(),
+                100, Duration.ofMinutes(1), Duration.ofDays(30), Duration.ofSeconds(5));
+    }
+
+    private long version(long atMillis)
+    {
+        return atMillis * 1000;
+    }
+
+    private JournalEntrySummaryDTO summary(int id, long changeVersion)
+    {
+        return new JournalEntrySummaryDTO(id, "t", null, null, true, 9, "x", 1, changeVersion);
+    }
+
+    private JournalEntry sharedEntry(int id)
+    {
+        Psychologist psychologist = new Psychologist();
+        psychologist.setId(PSYCHOLOGIST_ID);
+        Patient patient = new Patient();
+        patient.setId(9);
+        patient.setPsychologist(psychologist);
+        JournalEntry entry = new JournalEntry();
+        entry.setId(id);
+        entry.setPatient(patient);
+        entry.setAllowPsychologist(true);
+        return entry;
+    }
+
+    @Test
+    void clock_IsStrictlyIncreasingWithinAMillisecond()
+    {
+        long first = versionClock.next();
+        long second = versionClock.next();
+        millis.set(START - 10);
+        long afterStepBack = versionClock.next();
+
+        assertEquals(version(START), first);
+        assertEquals(first + 1, second);
+        assertEquals(second + 1, afterStepBack);
+    }
+
+    @Test
+    void latestVersion_IsCachedAndAdvancedByChanges()
+    {
+        when(journalRepository.findLatestSharedVersion(PSYCHOLOGIST_ID)).thenReturn(version(START - 1000));
+        when(tombstoneRepository.findLatestVersionForPsychologist(PSYCHOLOGIST_ID)).thenReturn(0L);
+        assertEquals(version(START - 1000), sync.latestVersion(PSYCHOLOGIST_ID));
+
+        JournalEntry entry = sharedEntry(5);
+        entry.setChangeVersion(versionClock.next());
+        sync.onEntryChanged(new JournalEntryChangedEvent(entry));
+
+        assertEquals(entry.getChangeVersion(), sync.latestVersion(PSYCHOLOGIST_ID));
+        verify(journalRepository, times(1)).findLatestSharedVersion(PSYCHOLOGIST_ID);
+    }
+
+    @Test
+    void etag_IsWithheldWhileALowerVersionCanStillCommit()
+    {
+        // Entry 2 committed with a higher version than entry 1, whose transaction is still open
+        long lower = version(START - 1_500);
+        long higher = version(START - 1_000);
+        when(journalRepository.findLatestSharedVersion(PSYCHOLOGIST_ID)).thenReturn(higher);
+        assertNull(sync.etag(PSYCHOLOGIST_ID));
+
+        // Entry 1 commits late; the latest version stays the same
+        JournalEntry late = sharedEntry(1);
+        late.setChangeVersion(lower);
+        sync.onEntryChanged(new JournalEntryChangedEvent(late));
+        assertNull(sync.etag(PSYCHOLOGIST_ID));
+
+        // Only once nothing below the latest version can still commit is the ETag handed out
+        millis.addAndGet(5_000);
+        assertEquals("\"" + higher + "\"", sync.etag(PSYCHOLOGIST_ID));
+    }
+
+    @Test
+    void patientAssigned_GivesPreviouslySharedEntriesNewVersions()
+    {
+        when(journalRepository.findLatestSharedVersion(PSYCHOLOGIST_ID)).thenReturn(version(START - 60_000));
+        sync.latestVersion(PSYCHOLOGIST_ID);
+        when(journalRepository.findSharedIdsByPatientId(9)).thenReturn(List.of(4, 5));
+
+        sync.patientAssigned(9);
+        verify(journalRepository).updateChangeVersion(4, version(START));
+        verify(journalRepository).updateChangeVersion(5, version(START) + 1);
+
+        when(journalRepository.findLatestSharedVersion(PSYCHOLOGIST_ID)).thenReturn(version(START) + 1);
+        sync.onPatientAssigned(new PatientAssignedEvent(9, PSYCHOLOGIST_ID));
+        assertEquals(version(START) + 1, sync.latestVersion(PSYCHOLOGIST_ID));
+    }
+
+    @Test
+    void entryDeleted_AdvancesVersionOnlyWhenATombstoneWasWritten()
+    {
+        assertEquals(0, sync.latestVersion(PSYCHOLOGIST_ID));
+        when(tombstoneRepository.insertForSharedEntry(6, 9, version(START))).thenReturn(0);
+        assertEquals(0, sync.entryDeleted(9, 6));
+        sync.onEntryDeleted(new JournalEntryDeletedEvent(6, 9, 0));
+        verify(patientRepository, never()).findPsychologistIdById(anyInt());
+
+        millis.addAndGet(1);
+        when(tombstoneRepository.insertForSharedEntry(7, 9, version(START + 1))).thenReturn(1);
+        when(patientRepository.findPsychologistIdById(9)).thenReturn(Optional.of(PSYCHOLOGIST_ID));
+        long tombstoneVersion = sync.entryDeleted(9, 7);
+        assertEquals(0, sync.latestVersion(PSYCHOLOGIST_ID));
+        sync.onEntryDeleted(new JournalEntryDeletedEvent(7, 9, tombstoneVersion));
+        assertEquals(version(START + 1), sync.latestVersion(PSYCHOLOGIST_ID));
+    }
+
+    @Test
+    void getChanges_ReturnsDeltasAndHoldsBackRecentVersions()
+    {
+        long since = version(START - 60_000);
+        long old = version(START - 30_000);
+        long recent = version(START - 1_000);
+        when(journalRepository.findSharedChanges(PSYCHOLOGIST_ID, since, Limit.of(501))).thenReturn(List.of(summary(1, old), summary(2, recent)));
+        when(tombstoneRepository.findDeletedForPsychologist(PSYCHOLOGIST_ID, since, Long.MAX_VALUE))
+                .thenReturn(List.of(new JournalEntryTombstone(3, 9, old + 1)));
+
+        SharedJournalChangesDTO changes = sync.getChanges(PSYCHOLOGIST_ID, since);
+
+        assertEquals(List.of(1, 2), changes.getChanged().stream().map(JournalEntrySummaryDTO::getId).toList());
+        assertEquals(List.of(3), changes.getDeleted());
+        assertEquals(version(START - 5_000), changes.getVersion());
+        assertFalse(changes.isReset());
+    }
+
+    @Test
+    void getChanges_AsksForResetWhenTombstonesExpired()
+    {
+        when(journalRepository.findLatestSharedVersion(PSYCHOLOGIST_ID)).thenReturn(version(START));
+
+        SharedJournalChangesDTO changes = sync.getChanges(PSYCHOLOGIST_ID, 0);
+
+        assertTrue(changes.isReset());
+        assertEquals(version(START), changes.getVersion());
+        verify(journalRepository, never()).findSharedChanges(anyInt(), anyLong(), any());
+    }
+}
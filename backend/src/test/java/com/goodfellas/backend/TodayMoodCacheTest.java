@@ -0,0 +1,109 @@
+package com.goodfellas.backend;
+
+import com.goodfellas.backend.dto.MoodDTO;
+import com.goodfellas.backend.event.MoodSubmittedEvent;
+import com.goodfellas.backend.event.MoodsImportedEvent;
+import com.goodfellas.backend.service.TodayMoodCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.*;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TodayMoodCacheTest
+{
+    private static final ZoneId ZONE = ZoneId.of("Europe/Bucharest");
+
+    /** Clock that the test moves forward by hand. */
+    private static class TestClock extends Clock
+    {
+        private Instant now;
+
+        TestClock(Instant now) { this.now = now; }
+
+        void advance(Duration duration) { now = now.plus(duration); }
+
+        @Override public ZoneId getZone() { return ZONE; }
+        @Override public Clock withZone(ZoneId zone) { throw new UnsupportedOperationException(); }
+        @Override public Instant instant() { return now; }
+    }
+
+    private TestClock clock;
+    private TodayMoodCache cache;
+    private SimpleMeterRegistry registry;
+
+    @BeforeEach
+    void setUp()
+    {
+        clock = new TestClock(LocalDateTime.of(2025, 3, 10, 23, 0).atZone(ZONE).toInstant());
+        registry = new SimpleMeterRegistry();
+        cache = new TodayMoodCache(registry, 100, Duration.ofMinutes(5), clock);
+    }
+
+    @Test
+    void submittedMood_IsCachedUntilMidnight()
+    {
+        cache.onMoodSubmitted(new MoodSubmittedEvent(7, 1, cache.today(), 6));
+
+        clock.advance(Duration.ofMinutes(59));
+        Optional<MoodDTO> cached = cache.get(1);
+        assertNotNull(cached);
+        assertEquals(7, cached.orElseThrow().getId());
+
+        clock.advance(Duration.ofMinutes(2));
+        assertNull(cache.get(1));
+    }
+
+    @Test
+    void absence_IsCachedBriefly()
+    {
+        cache.put(1, cache.today(), null);
+
+        assertEquals(Optional.empty(), cache.get(1));
+        clock.advance(Duration.ofMinutes(6));
+        assertNull(cache.get(1));
+    }
+
+    @Test
+    void absence_NeverReplacesASubmittedMood()
+    {
+        // A read found no row, then a submission committed before the read cached its result
+        cache.onMoodSubmitted(new MoodSubmittedEvent(7, 1, cache.today(), 6));
+        cache.put(1, cache.today(), null);
+
+        assertEquals(7, cache.get(1).orElseThrow().getId());
+    }
+
+    @Test
+    void import_InvalidatesTodayOnlyWhenItIncludesToday()
+    {
+        cache.onMoodSubmitted(new MoodSubmittedEvent(7, 1, cache.today(), 6));
+        cache.onMoodsImported(new MoodsImportedEvent(1, false));
+        assertNotNull(cache.get(1));
+
+        cache.onMoodsImported(new MoodsImportedEvent(1, true));
+        assertNull(cache.get(1));
+    }
+
+    @Test
+    void entriesForAnotherDay_AreIgnored()
+    {
+        cache.put(1, cache.today().minusDays(1), new MoodDTO());
+
+        assertNull(cache.get(1));
+    }
+
+    @Test
+    void hitsAndMisses_AreExposedAsMetrics()
+    {
+        cache.get(1);
+        cache.put(1, cache.today(), null);
+        cache.get(1);
+
+        assertEquals(1.0, registry.get("cache.gets").tag("cache", "todayMood").tag("result", "hit").functionCounter().count());
+        assertEquals(1.0, registry.get("cache.gets").tag("cache", "todayMood").tag("result", "miss").functionCounter().count());
+    }
+}
@@ -0,0 +1,63 @@
+package com.goodfellas.backend;
+
+import com.goodfellas.backend.model.RevokedToken;
+import com.goodfellas.backend.repository.RevokedTokenRepository;
+import com.goodfellas.backend.security.TokenRevocationList;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TokenRevocationListTest
+{
+    @Mock
+    private RevokedTokenRepository revokedTokenRepository;
+
+    private TokenRevocationList revocationList;
+
+    @BeforeEach
+    void setUp()
+    {
+        revocationList = new TokenRevocationList(revokedTokenRepository);
+    }
+
+    @Test
+    void revoke_MarksTokenAndPersistsIt()
+    {
+        revocationList.revoke("jti-1", new Date(System.currentTimeMillis() + 60_000));
+
+        assertTrue(revocationList.isRevoked("jti-1"));
+        assertFalse(revocationList.isRevoked("jti-2"));
+        verify(revokedTokenRepository).save(any(RevokedToken.class));
+    }
+
+    @Test
+    void revoke_IgnoresAlreadyExpiredToken()
+    {
+        revocationList.revoke("jti-1", new Date(System.currentTimeMillis() - 1_000));
+
+        assertFalse(revocationList.isRevoked("jti-1"));
+        verifyNoInteractions(revokedTokenRepository);
+    }
+
+    @Test
+    void load_RestoresPersistedEntries()
+    {
+        when(revokedTokenRepository.findByExpiresAtAfter(any()))
+                .thenReturn(List.of(new RevokedToken("jti-1", LocalDateTime.now().plusMinutes(5))));
+
+        revocationList.load();
+
+        assertTrue(revocationList.isRevoked("jti-1"));
+    }
+}
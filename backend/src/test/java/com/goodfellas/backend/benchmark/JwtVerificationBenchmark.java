@@ -0,0 +1,87 @@
+package com.goodfellas.backend.benchmark;
+
+import com.goodfellas.backend.security.AuthenticatedUser;
+import com.goodfellas.backend.security.JWTGenerator;
+import com.goodfellas.backend.security.SecurityConstants;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+
+import javax.crypto.SecretKey;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-request cost of JWT verification in the authentication filter:
+ * the previous path (key derivation + two full parses), a single parse with a shared parser, and the cached path.
+ * Run with: mvn test-compile exec:exec -Dexec.executable=java -Dexec.classpathScope=test "-Dexec.args=-cp %classpath com.goodfellas.backend.benchmark.JwtVerificationBenchmark"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtVerificationBenchmark
+{
+    private JWTGenerator uncached;
+    private JWTGenerator cached;
+    private String token;
+
+    @Setup
+    public void setUp()
+    {
+        SecurityConstants constants = new SecurityConstants();
+        constants.init();
+        uncached = new JWTGenerator(constants, 0, Duration.ofMinutes(5));
+        cached = new JWTGenerator(constants, 10_000, Duration.ofMinutes(5));
+
+        var principal = new AuthenticatedUser(42, "patient42", "", "ROLE_PATIENT");
+        token = cached.generateToken(new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities()));
+    }
+
+    @Benchmark
+    public String previousValidateThenParse()
+    {
+        Jwts.parser().verifyWith(legacyKey()).build().parseSignedClaims(token);
+        Claims claims = Jwts.parser().verifyWith(legacyKey()).build().parseSignedClaims(token).getPayload();
+        return claims.getSubject();
+    }
+
+    @Benchmark
+    public String singleParse()
+    {
+        return uncached.verify(token).claims().getSubject();
+    }
+
+    @Benchmark
+    public String cachedVerify()
+    {
+        return cached.verify(token).claims().getSubject();
+    }
+
+    private static SecretKey legacyKey()
+    {
+        return Keys.hmacShaKeyFor(Decoders.BASE64.decode(SecurityConstants.JWT_SECRET));
+    }
+
+    public static void main(String[] args) throws RunnerException
+    {
+        new Runner(new OptionsBuilder().include(JwtVerificationBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,124 @@
+package com.goodfellas.backend.benchmark;
+
+import com.goodfellas.backend.model.Mood;
+import com.goodfellas.backend.model.MoodSeries;
+import com.goodfellas.backend.repository.MoodJdbcRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.boot.model.naming.CamelCaseToUnderscoresNamingStrategy;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Loading one patient's whole mood history: JPA entities (the former findByPatient_Username query) versus the
+ * primitive MoodSeries read through JdbcTemplate, against an in-memory H2 database.
+ * Compare the gc.alloc.rate.norm column (bytes allocated per load) besides the latency.
+ * Run with: mvn test-compile exec:exec -Dexec.executable=java -Dexec.classpathScope=test "-Dexec.args=-cp %classpath com.goodfellas.backend.benchmark.MoodSeriesBenchmark"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+public class MoodSeriesBenchmark
+{
+    private static final String USERNAME = "benchmark";
+
+    @Param({"365", "3650"})
+    private int days;
+
+    private SingleConnectionDataSource dataSource;
+    private EntityManagerFactory entityManagerFactory;
+    private MoodJdbcRepository moodJdbcRepository;
+    private int patientId;
+
+    @Setup
+    public void setUp()
+    {
+        dataSource = new SingleConnectionDataSource("jdbc:h2:mem:mood-series;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;NON_KEYWORDS=VALUE", "sa", "", true);
+
+        LocalContainerEntityManagerFactoryBean factory = new LocalContainerEntityManagerFactoryBean();
+        factory.setDataSource(dataSource);
+        factory.setPackagesToScan("com.goodfellas.backend.model");
+        factory.setJpaVendorAdapter(new HibernateJpaVendorAdapter());
+        factory.setJpaPropertyMap(Map.of(
+                "hibernate.hbm2ddl.auto", "create-drop",
+                "hibernate.physical_naming_strategy", CamelCaseToUnderscoresNamingStrategy.class.getName()));
+        factory.afterPropertiesSet();
+        entityManagerFactory = factory.getObject();
+
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.update("insert into patient (username, password, first_name, last_name, age) values (?, 'x', 'Bench', 'Mark', 30)", USERNAME);
+        patientId = jdbcTemplate.queryForObject("select id from patient where username = ?", Integer.class, USERNAME);
+
+        LocalDate first = LocalDate.now().minusDays(days);
+        List<Object[]> rows = new ArrayList<>(days);
+        for (int i = 0; i < days; i++)
+            rows.add(new Object[]{patientId, first.plusDays(i), 1 + i % 10});
+        jdbcTemplate.batchUpdate("insert into mood (patient_id, date, value) values (?, ?, ?)", rows);
+
+        moodJdbcRepository = new MoodJdbcRepository(jdbcTemplate);
+    }
+
+    @TearDown
+    public void tearDown()
+    {
+        entityManagerFactory.close();
+        dataSource.destroy();
+    }
+
+    @Benchmark
+    public List<Mood> entities()
+    {
+        EntityManager entityManager = entityManagerFactory.createEntityManager();
+        try
+        {
+            return entityManager.createQuery("select m from Mood m where m.patient.username = :username", Mood.class)
+                    .setParameter("username", USERNAME)
+                    .getResultList();
+        }
+        finally
+        {
+            entityManager.close();
+        }
+    }
+
+    @Benchmark
+    public MoodSeries series()
+    {
+        return moodJdbcRepository.findSeries(patientId);
+    }
+
+    public static void main(String[] args) throws RunnerException
+    {
+        new Runner(new OptionsBuilder()
+                .include(MoodSeriesBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}